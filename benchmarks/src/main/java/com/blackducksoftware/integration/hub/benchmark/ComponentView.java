@@ -0,0 +1,61 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.util.Date;
+import java.util.List;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * The shape of an item on a Hub bill of materials page.
+ */
+public class ComponentView {
+    public String componentName;
+    public String componentVersionName;
+    public String componentVersion;
+    public List<String> usages;
+    public List<String> matchTypes;
+    public Date releasedOn;
+    public Date updatedAt;
+
+    @SerializedName("_meta")
+    public Meta meta;
+
+    public static class Meta {
+        public String href;
+        public List<Link> links;
+    }
+
+    public static class Link {
+        public String rel;
+        public String href;
+    }
+
+    public static class Page {
+        public int totalCount;
+        public List<ComponentView> items;
+    }
+
+}
@@ -0,0 +1,107 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Compares the shared ISO-8601 codec with the per-call SimpleDateFormat it replaced and with Gson's synchronized setDateFormat adapter. Run with more threads (-t) to see the lock contention of the old Gson adapter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class DateCodecBenchmark {
+    private static final String DATE_STRING = "2017-03-02T03:35:23.456Z";
+    private static final String DATE_JSON = "\"" + DATE_STRING + "\"";
+
+    private Date date;
+    private Gson codecGson;
+    private Gson simpleDateFormatGson;
+
+    @Setup
+    public void setup() throws Exception {
+        date = RestConnection.parseDateString(DATE_STRING);
+        codecGson = BenchmarkConnections.create().gson;
+        simpleDateFormatGson = new GsonBuilder().setDateFormat(RestConnection.JSON_DATE_FORMAT).create();
+    }
+
+    @Benchmark
+    public Date parseDateString() throws ParseException {
+        return RestConnection.parseDateString(DATE_STRING);
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return RestConnection.formatDate(date);
+    }
+
+    @Benchmark
+    public Date parseWithSimpleDateFormat() throws ParseException {
+        final SimpleDateFormat sdf = new SimpleDateFormat(RestConnection.JSON_DATE_FORMAT);
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return sdf.parse(DATE_STRING);
+    }
+
+    @Benchmark
+    public String formatWithSimpleDateFormat() {
+        final SimpleDateFormat sdf = new SimpleDateFormat(RestConnection.JSON_DATE_FORMAT);
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return sdf.format(date);
+    }
+
+    @Benchmark
+    public Date decodeDateWithCodec() {
+        return codecGson.fromJson(DATE_JSON, Date.class);
+    }
+
+    @Benchmark
+    public Date decodeDateWithSetDateFormat() {
+        return simpleDateFormatGson.fromJson(DATE_JSON, Date.class);
+    }
+
+}
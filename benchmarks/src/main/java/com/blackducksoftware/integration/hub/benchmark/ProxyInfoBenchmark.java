@@ -0,0 +1,78 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo;
+
+/**
+ * The proxy decision made whenever a connection connects, for a proxy with a typical list of ignored hosts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyInfoBenchmark {
+    private ProxyInfo proxyInfo;
+    private URL proxiedUrl;
+    private URL ignoredUrl;
+
+    @Setup
+    public void setup() throws Exception {
+        proxyInfo = new ProxyInfo("proxy.example.com", 3128, null, "localhost,127\\.0\\.0\\.1,.*\\.internal\\.example\\.com,10\\.0\\..*");
+        proxiedUrl = new URL(BenchmarkConnections.HUB_URL);
+        ignoredUrl = new URL("https://hub.internal.example.com/");
+    }
+
+    @Benchmark
+    public boolean shouldUseProxyForProxiedUrl() {
+        return proxyInfo.shouldUseProxyForUrl(proxiedUrl);
+    }
+
+    @Benchmark
+    public boolean shouldUseProxyForIgnoredUrl() {
+        return proxyInfo.shouldUseProxyForUrl(ignoredUrl);
+    }
+
+    @Benchmark
+    public boolean shouldUseProxyWithoutProxy() {
+        return ProxyInfo.NO_PROXY_INFO.shouldUseProxyForUrl(proxiedUrl);
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.blackducksoftware.integration.hub.request.HubRequestFactory;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.UrlTemplate;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+/**
+ * The work done for every request before it reaches the network: building the url, encoding the query and merging the headers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBuildingBenchmark {
+    private static final List<String> URL_SEGMENTS = Arrays.asList("api", "projects", "0d5b4d96-7e5c-4a3a-9d2b-3c1e6ad64f6e", "versions");
+
+    private RestConnection restConnection;
+    private HubRequestFactory hubRequestFactory;
+    private Map<String, String> queryParameters;
+    private Map<String, String> requestHeaders;
+    private HttpUrl httpUrl;
+    private UrlTemplate urlTemplate;
+    private Map<String, String> urlVariables;
+
+    @Setup
+    public void setup() throws Exception {
+        restConnection = BenchmarkConnections.create();
+        hubRequestFactory = new HubRequestFactory(restConnection);
+
+        queryParameters = new LinkedHashMap<>();
+        queryParameters.put("q", "versionName:1.0 & \"release\"");
+        queryParameters.put("sort", "updatedAt DESC");
+        queryParameters.put("limit", "100");
+        queryParameters.put("offset", "200");
+
+        requestHeaders = new HashMap<>();
+        requestHeaders.put("Accept", "application/vnd.blackducksoftware.bill-of-materials-4+json");
+
+        httpUrl = restConnection.createHttpUrl(URL_SEGMENTS, queryParameters);
+
+        urlTemplate = restConnection.compileUrlTemplate("/api/projects/{projectId}/versions?q={q}&sort={sort}&limit={limit}&offset={offset}");
+        urlVariables = new HashMap<>(queryParameters);
+        urlVariables.put("projectId", URL_SEGMENTS.get(2));
+    }
+
+    @Benchmark
+    public HttpUrl createHttpUrl() {
+        return restConnection.createHttpUrl(URL_SEGMENTS, queryParameters);
+    }
+
+    @Benchmark
+    public HttpUrl expandUrlTemplate() {
+        return urlTemplate.expand(urlVariables);
+    }
+
+    @Benchmark
+    public Request createGetRequest() {
+        return restConnection.createGetRequest(httpUrl, requestHeaders);
+    }
+
+    @Benchmark
+    public HttpUrl buildPagedRequestUrl() {
+        return hubRequestFactory.createPagedRequest(100, URL_SEGMENTS, "versionName:1.0").buildHttpUrl();
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.api.oauth;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Binds a Token without reflection. The field names match the SerializedName annotations on Token, and unknown fields are skipped.
+ */
+public class TokenTypeAdapter extends TypeAdapter<Token> {
+
+    @Override
+    public void write(final JsonWriter out, final Token token) throws IOException {
+        if (token == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("access_token").value(token.accessToken);
+        out.name("refresh_token").value(token.refreshToken);
+        out.name("token_type").value(token.tokenType);
+        out.name("expires_in").value(token.expiresIn);
+        out.name("scope").value(token.scope);
+        out.name("jti").value(token.jti);
+        out.endObject();
+    }
+
+    @Override
+    public Token read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final Token token = new Token();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+            case "access_token":
+                token.accessToken = readString(in);
+                break;
+            case "refresh_token":
+                token.refreshToken = readString(in);
+                break;
+            case "token_type":
+                token.tokenType = readString(in);
+                break;
+            case "expires_in":
+                token.expiresIn = readString(in);
+                break;
+            case "scope":
+                token.scope = readString(in);
+                break;
+            case "jti":
+                token.jti = readString(in);
+                break;
+            default:
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return token;
+    }
+
+    /**
+     * Accepts numbers and booleans as well, just as Gson's reflective binding of a String field does.
+     */
+    private String readString(final JsonReader in) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.gson;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.blackducksoftware.integration.hub.api.oauth.Token;
+import com.blackducksoftware.integration.hub.api.oauth.TokenTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Supplies TypeAdapters that bind model classes without reflection, for the library's own model and for any model class registered with it. Types without a registered adapter fall through to Gson's reflective binding.
+ * Gson caches the adapter it finds for a type, so register adapters before the Gson is first used.
+ */
+public class HubTypeAdapterFactory implements TypeAdapterFactory {
+    private final Map<Class<?>, TypeAdapter<?>> typeAdapters = new ConcurrentHashMap<>();
+    private final List<TypeAdapterFactory> typeAdapterFactories = new CopyOnWriteArrayList<>();
+
+    public HubTypeAdapterFactory() {
+        registerTypeAdapter(Token.class, new TokenTypeAdapter());
+        registerTypeAdapter(Date.class, Iso8601DateCodec.DATE_TYPE_ADAPTER);
+        registerTypeAdapter(Instant.class, Iso8601DateCodec.INSTANT_TYPE_ADAPTER);
+        registerTypeAdapter(OffsetDateTime.class, Iso8601DateCodec.OFFSET_DATE_TIME_TYPE_ADAPTER);
+    }
+
+    /**
+     * The adapter is used for exactly this class, not for its subclasses. It does not have to handle null.
+     */
+    public <T> void registerTypeAdapter(final Class<T> clazz, final TypeAdapter<T> typeAdapter) {
+        typeAdapters.put(clazz, typeAdapter.nullSafe());
+    }
+
+    /**
+     * Factories are consulted in the order they were registered, after the adapters registered for an exact class.
+     */
+    public void registerTypeAdapterFactory(final TypeAdapterFactory typeAdapterFactory) {
+        typeAdapterFactories.add(typeAdapterFactory);
+    }
+
+    public void registerAll(final HubTypeAdapterFactory other) {
+        typeAdapters.putAll(other.typeAdapters);
+        for (final TypeAdapterFactory typeAdapterFactory : other.typeAdapterFactories) {
+            if (!typeAdapterFactories.contains(typeAdapterFactory)) {
+                typeAdapterFactories.add(typeAdapterFactory);
+            }
+        }
+    }
+
+    public boolean hasTypeAdapter(final Class<?> clazz) {
+        return typeAdapters.containsKey(clazz);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+        final TypeAdapter<?> typeAdapter = typeAdapters.get(type.getRawType());
+        if (typeAdapter != null) {
+            return (TypeAdapter<T>) typeAdapter;
+        }
+        for (final TypeAdapterFactory typeAdapterFactory : typeAdapterFactories) {
+            final TypeAdapter<T> created = typeAdapterFactory.create(gson, type);
+            if (created != null) {
+                return created;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.gson;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.Date;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Formats and parses the Hub's ISO-8601 timestamps with immutable, shared java.time formatters, so no formatter is created per call and no lock is taken. Timestamps are written in UTC with millisecond precision, for example
+ * 2017-03-02T03:35:23.456Z. Parsing also accepts any offset (Z, +01, +0100 or +01:00) and zero to nine fractional digits.
+ */
+public class Iso8601DateCodec {
+    public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSX").withZone(ZoneOffset.UTC);
+
+    /**
+     * The FORMATTER pattern without the UTC override, for values that carry their own offset.
+     */
+    private static final DateTimeFormatter OFFSET_FORMATTER = FORMATTER.withZone(null);
+
+    public static final DateTimeFormatter PARSER = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .appendLiteral('T')
+            .appendValue(ChronoField.HOUR_OF_DAY, 2)
+            .appendLiteral(':')
+            .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+            .optionalStart()
+            .appendLiteral(':')
+            .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .optionalEnd()
+            .optionalEnd()
+            .appendPattern("[XXX][XX][X]")
+            .toFormatter();
+
+    public static final TypeAdapter<Date> DATE_TYPE_ADAPTER = new TypeAdapter<Date>() {
+        @Override
+        public void write(final JsonWriter out, final Date value) throws IOException {
+            out.value(formatDate(value));
+        }
+
+        @Override
+        public Date read(final JsonReader in) throws IOException {
+            final String value = in.nextString();
+            try {
+                return Date.from(parseInstant(value));
+            } catch (final DateTimeParseException e) {
+                throw new JsonSyntaxException(value, e);
+            }
+        }
+    };
+
+    public static final TypeAdapter<Instant> INSTANT_TYPE_ADAPTER = new TypeAdapter<Instant>() {
+        @Override
+        public void write(final JsonWriter out, final Instant value) throws IOException {
+            out.value(FORMATTER.format(value));
+        }
+
+        @Override
+        public Instant read(final JsonReader in) throws IOException {
+            final String value = in.nextString();
+            try {
+                return parseInstant(value);
+            } catch (final DateTimeParseException e) {
+                throw new JsonSyntaxException(value, e);
+            }
+        }
+    };
+
+    /**
+     * Keeps the offset the Hub sent instead of converting to UTC.
+     */
+    public static final TypeAdapter<OffsetDateTime> OFFSET_DATE_TIME_TYPE_ADAPTER = new TypeAdapter<OffsetDateTime>() {
+        @Override
+        public void write(final JsonWriter out, final OffsetDateTime value) throws IOException {
+            out.value(value.format(OFFSET_FORMATTER));
+        }
+
+        @Override
+        public OffsetDateTime read(final JsonReader in) throws IOException {
+            final String value = in.nextString();
+            try {
+                return parseOffsetDateTime(value);
+            } catch (final DateTimeParseException e) {
+                throw new JsonSyntaxException(value, e);
+            }
+        }
+    };
+
+    public static Date parseDate(final String dateString) throws ParseException {
+        try {
+            return Date.from(parseInstant(dateString));
+        } catch (final DateTimeParseException e) {
+            final ParseException parseException = new ParseException(e.getMessage(), e.getErrorIndex());
+            parseException.initCause(e);
+            throw parseException;
+        }
+    }
+
+    public static String formatDate(final Date date) {
+        return FORMATTER.format(date.toInstant());
+    }
+
+    public static Instant parseInstant(final String dateString) {
+        return parseOffsetDateTime(dateString).toInstant();
+    }
+
+    public static OffsetDateTime parseOffsetDateTime(final String dateString) {
+        return OffsetDateTime.parse(dateString, PARSER);
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.request;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import okhttp3.Response;
+
+/**
+ * Walks the items array of a page of Hub results straight off the response body, decoding one item at a time, so a page never has to fit in memory as a whole. The response stays open until the iterator is exhausted or
+ * closed, so always close it, preferably with try-with-resources.
+ */
+public class HubItemIterator<T> implements Iterator<T>, Closeable {
+    public static final String ITEMS = "items";
+    public static final String TOTAL_COUNT = "totalCount";
+
+    private final Response response;
+    private final JsonReader jsonReader;
+    private final Gson gson;
+    private final Type itemType;
+
+    private int totalCount = -1;
+    private int itemCount;
+    private boolean inItems;
+    private boolean closed;
+
+    public HubItemIterator(final Response response, final Gson gson, final Type itemType) throws IOException {
+        this.response = response;
+        this.gson = gson;
+        this.itemType = itemType;
+        this.jsonReader = gson.newJsonReader(response.body().charStream());
+        try {
+            jsonReader.beginObject();
+            inItems = advanceToItems();
+        } catch (final IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        try {
+            if (inItems && jsonReader.hasNext()) {
+                return true;
+            }
+            if (inItems) {
+                jsonReader.endArray();
+                inItems = false;
+                // the fields after the items array, such as a trailing totalCount
+                advanceToItems();
+            }
+            close();
+            return false;
+        } catch (final IOException e) {
+            close();
+            throw new JsonIOException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            final T item = gson.fromJson(jsonReader, itemType);
+            itemCount++;
+            return item;
+        } catch (final JsonIOException | JsonSyntaxException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the totalCount of the page, or -1 if it has not been read yet (it is only known up front when it precedes the items in the response)
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the number of items returned so far
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            response.close();
+        }
+    }
+
+    /**
+     * Skips every field other than totalCount until the items array is entered or the object ends.
+     */
+    private boolean advanceToItems() throws IOException {
+        while (jsonReader.hasNext()) {
+            final String name = jsonReader.nextName();
+            if (ITEMS.equals(name) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                jsonReader.beginArray();
+                return true;
+            } else if (TOTAL_COUNT.equals(name) && jsonReader.peek() == JsonToken.NUMBER) {
+                totalCount = jsonReader.nextInt();
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,314 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.request;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+import okhttp3.HttpUrl;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * An in-memory cache of Hub GET responses that have already been decoded with the connection's Gson, keyed by the normalized request url and the decoded type. Entries expire after a time to live, the least recently used entries
+ * are evicted once the total weight (the Content-Length of the response bodies, or the characters read when the length isn't known) is exceeded, and 404 responses are remembered for their own time to live with a weight
+ * of NOT_FOUND_WEIGHT each. Expired entries are dropped when they are read and, at most once a second, swept from the whole cache when an entry is added.
+ *
+ * The same decoded instance is returned to every caller until its entry expires, so cached values must be treated as read-only. Concurrent misses for the same key share a single request.
+ */
+public class HubObjectCache {
+    public static final int NOT_FOUND = 404;
+    public static final long NOT_FOUND_WEIGHT = 64;
+
+    private static final long PRUNE_INTERVAL_MILLIS = 1000;
+
+    private final long maxWeight;
+    private final long timeToLiveMillis;
+    private final long notFoundTimeToLiveMillis;
+
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+    private long totalWeight;
+    private long nextPruneAt;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong notFoundHitCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public HubObjectCache(final long maxWeight, final long timeToLive, final TimeUnit timeUnit) {
+        this(maxWeight, timeToLive, timeToLive, timeUnit);
+    }
+
+    public HubObjectCache(final long maxWeight, final long timeToLive, final long notFoundTimeToLive, final TimeUnit timeUnit) {
+        this.maxWeight = maxWeight;
+        this.timeToLiveMillis = timeUnit.toMillis(timeToLive);
+        this.notFoundTimeToLiveMillis = timeUnit.toMillis(notFoundTimeToLive);
+    }
+
+    public <T> T get(final HubRequest hubRequest, final Class<T> clazz) throws IntegrationException {
+        final String key = createKey(hubRequest.buildHttpUrl(), clazz);
+        final CacheEntry cached = getEntry(key);
+        if (cached != null) {
+            if (cached.notFoundException != null) {
+                notFoundHitCount.incrementAndGet();
+                throw new IntegrationRestException(NOT_FOUND, cached.notFoundException.getHttpStatusMessage(), cached.notFoundException.getMessage(), cached.notFoundException);
+            }
+            hitCount.incrementAndGet();
+            return clazz.cast(cached.value);
+        }
+
+        final CompletableFuture<Object> load = new CompletableFuture<>();
+        final CompletableFuture<Object> inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return clazz.cast(awaitLoad(key, inFlight));
+        }
+        try {
+            final T value = load(hubRequest, clazz, key);
+            load.complete(value);
+            return value;
+        } catch (final Throwable e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    public void invalidate(final HubRequest hubRequest, final Class<?> clazz) {
+        final String key = createKey(hubRequest.buildHttpUrl(), clazz);
+        synchronized (entries) {
+            final CacheEntry removed = entries.remove(key);
+            if (removed != null) {
+                totalWeight -= removed.weight;
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            totalWeight = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getWeight() {
+        synchronized (entries) {
+            return totalWeight;
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getNotFoundHitCount() {
+        return notFoundHitCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private <T> T load(final HubRequest hubRequest, final Class<T> clazz, final String key) throws IntegrationException {
+        missCount.incrementAndGet();
+        try (Response response = hubRequest.executeGet()) {
+            final ResponseBody body = response.body();
+            final CountingReader reader = new CountingReader(body.charStream());
+            final T value;
+            try (JsonReader jsonReader = hubRequest.restConnection.gson.newJsonReader(reader)) {
+                value = hubRequest.restConnection.gson.fromJson(jsonReader, clazz);
+            }
+            final long weight = body.contentLength() >= 0 ? body.contentLength() : reader.count;
+            putEntry(key, new CacheEntry(value, null, weight, System.currentTimeMillis() + timeToLiveMillis));
+            return value;
+        } catch (final IntegrationRestException e) {
+            if (e.getHttpStatusCode() == NOT_FOUND && notFoundTimeToLiveMillis > 0) {
+                putEntry(key, new CacheEntry(null, e, NOT_FOUND_WEIGHT, System.currentTimeMillis() + notFoundTimeToLiveMillis));
+            }
+            throw e;
+        } catch (final IOException | JsonParseException e) {
+            throw new IntegrationException(e);
+        }
+    }
+
+    private Object awaitLoad(final String key, final CompletableFuture<Object> inFlight) throws IntegrationException {
+        try {
+            final Object value = inFlight.get();
+            hitCount.incrementAndGet();
+            return value;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IntegrationException("Interrupted while waiting for " + key, e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IntegrationRestException) {
+                final IntegrationRestException restException = (IntegrationRestException) cause;
+                if (restException.getHttpStatusCode() == NOT_FOUND) {
+                    notFoundHitCount.incrementAndGet();
+                }
+                throw new IntegrationRestException(restException.getHttpStatusCode(), restException.getHttpStatusMessage(), restException.getMessage(), restException);
+            }
+            if (cause instanceof IntegrationException) {
+                throw new IntegrationException(cause.getMessage(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IntegrationException(cause);
+        }
+    }
+
+    private CacheEntry getEntry(final String key) {
+        synchronized (entries) {
+            final CacheEntry entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                totalWeight -= entry.weight;
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void putEntry(final String key, final CacheEntry entry) {
+        if (entry.weight > maxWeight) {
+            return;
+        }
+        synchronized (entries) {
+            pruneExpired();
+            final CacheEntry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            totalWeight += entry.weight;
+            final Iterator<CacheEntry> iterator = entries.values().iterator();
+            while (totalWeight > maxWeight && iterator.hasNext()) {
+                final CacheEntry eldest = iterator.next();
+                iterator.remove();
+                totalWeight -= eldest.weight;
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void pruneExpired() {
+        final long now = System.currentTimeMillis();
+        if (now < nextPruneAt) {
+            return;
+        }
+        nextPruneAt = now + PRUNE_INTERVAL_MILLIS;
+        final Iterator<CacheEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            final CacheEntry entry = iterator.next();
+            if (entry.expiresAt <= now) {
+                iterator.remove();
+                totalWeight -= entry.weight;
+            }
+        }
+    }
+
+    /**
+     * The same resource requested with its query parameters in a different order maps to the same entry.
+     */
+    private String createKey(final HttpUrl httpUrl, final Class<?> clazz) {
+        final List<String> queryNames = new ArrayList<>(httpUrl.queryParameterNames());
+        Collections.sort(queryNames);
+        final HttpUrl.Builder urlBuilder = httpUrl.newBuilder().query(null).fragment(null);
+        for (final String queryName : queryNames) {
+            for (final String queryValue : httpUrl.queryParameterValues(queryName)) {
+                urlBuilder.addQueryParameter(queryName, queryValue);
+            }
+        }
+        return clazz.getName() + " " + urlBuilder.build().toString();
+    }
+
+    private static class CacheEntry {
+        private final Object value;
+        private final IntegrationRestException notFoundException;
+        private final long weight;
+        private final long expiresAt;
+
+        private CacheEntry(final Object value, final IntegrationRestException notFoundException, final long weight, final long expiresAt) {
+            this.value = value;
+            this.notFoundException = notFoundException;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class CountingReader extends FilterReader {
+        private long count;
+
+        private CountingReader(final Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int read = super.read();
+            if (read >= 0) {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+}
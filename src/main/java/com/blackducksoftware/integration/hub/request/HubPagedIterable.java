@@ -0,0 +1,63 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.request;
+
+import java.lang.reflect.Type;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A lazy view of all the items a HubPagedRequest can return. Nothing is requested until iteration starts, and every iterator pages through the results on its own.
+ */
+public class HubPagedIterable<T> implements Iterable<T> {
+    private final HubPagedRequest hubPagedRequest;
+    private final Type itemType;
+
+    public HubPagedIterable(final HubPagedRequest hubPagedRequest, final Type itemType) {
+        this.hubPagedRequest = hubPagedRequest;
+        this.itemType = itemType;
+    }
+
+    @Override
+    public HubPagedIterator<T> iterator() {
+        return new HubPagedIterator<>(hubPagedRequest, itemType);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * A sequential stream of the items. Close the stream (with try-with-resources) if it may not be consumed to the end, so the page being read is released.
+     */
+    public Stream<T> stream() {
+        final HubPagedIterator<T> iterator = iterator();
+        final Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+}
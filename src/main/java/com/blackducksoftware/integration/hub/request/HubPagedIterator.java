@@ -0,0 +1,133 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.request;
+
+import java.io.Closeable;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.rest.exception.UncheckedIntegrationException;
+
+/**
+ * Iterates the items of every page of a HubPagedRequest, starting at the request's offset and fetching the next page only once the current one is used up. Iteration stops at the totalCount reported by the Hub (or, if the Hub
+ * does not report one, at the first short page). A failed page request surfaces as an UncheckedIntegrationException. Closing the iterator releases the page being read, so close it when you stop early.
+ */
+public class HubPagedIterator<T> implements Iterator<T>, Closeable {
+    private final HubPagedRequest hubPagedRequest;
+    private final Type itemType;
+
+    private HubItemIterator<T> page;
+    private int nextOffset;
+    private int totalCount = -1;
+    private int pageCount;
+    private boolean finished;
+
+    public HubPagedIterator(final HubPagedRequest hubPagedRequest, final Type itemType) {
+        this(hubPagedRequest, itemType, hubPagedRequest.offset);
+    }
+
+    public HubPagedIterator(final HubPagedRequest hubPagedRequest, final Type itemType, final int startOffset) {
+        this.hubPagedRequest = hubPagedRequest;
+        this.itemType = itemType;
+        this.nextOffset = Math.max(0, startOffset);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!finished) {
+            if (page == null) {
+                page = fetchPage();
+            }
+            if (page.hasNext()) {
+                return true;
+            }
+            finishPage();
+        }
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * @return the totalCount reported by the most recently finished page, or -1 if no page has reported it yet
+     */
+    public int getTotalCount() {
+        if (page != null && page.getTotalCount() >= 0) {
+            return page.getTotalCount();
+        }
+        return totalCount;
+    }
+
+    /**
+     * @return the number of pages requested so far
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        if (page != null) {
+            page.close();
+            page = null;
+        }
+    }
+
+    private HubItemIterator<T> fetchPage() {
+        try {
+            pageCount++;
+            return hubPagedRequest.executeGetItems(itemType, nextOffset);
+        } catch (final IntegrationException e) {
+            finished = true;
+            throw new UncheckedIntegrationException(e);
+        }
+    }
+
+    private void finishPage() {
+        final int itemCount = page.getItemCount();
+        if (page.getTotalCount() >= 0) {
+            totalCount = page.getTotalCount();
+        }
+        page.close();
+        page = null;
+        nextOffset += itemCount;
+        if (itemCount == 0) {
+            finished = true;
+        } else if (totalCount >= 0) {
+            finished = nextOffset >= totalCount;
+        } else {
+            finished = itemCount < hubPagedRequest.limit;
+        }
+    }
+
+}
@@ -26,10 +26,16 @@ package com.blackducksoftware.integration.hub.request;
 import static com.blackducksoftware.integration.hub.RestConstants.QUERY_LIMIT;
 import static com.blackducksoftware.integration.hub.RestConstants.QUERY_OFFSET;
 
+import java.lang.reflect.Type;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
+import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 
+import okhttp3.Request;
+
 /**
  * This should be used to communicate to the Hub REST endpoints that can return many items across pages of data. These are the endpoints that have the limit and offset query parameters.
  */
@@ -55,6 +61,77 @@ public class HubPagedRequest extends HubRequest {
         addQueryParameter(QUERY_OFFSET, String.valueOf(offset));
     }
 
+    /**
+     * All the items across every page, from this request's offset on, fetched lazily page by page.
+     */
+    public <T> HubPagedIterable<T> iterate(final Class<T> itemClass) {
+        return new HubPagedIterable<>(this, itemClass);
+    }
+
+    public <T> HubPagedIterable<T> iterate(final Type itemType) {
+        return new HubPagedIterable<>(this, itemType);
+    }
+
+    /**
+     * @see HubPagedIterable#stream()
+     */
+    public <T> Stream<T> stream(final Class<T> itemClass) {
+        return new HubPagedIterable<T>(this, itemClass).stream();
+    }
+
+    <T> HubItemIterator<T> executeGetItems(final Type itemType, final int pageOffset) throws IntegrationException {
+        final int originalOffset = offset;
+        offset = pageOffset;
+        try {
+            return executeGetItems(itemType);
+        } finally {
+            offset = originalOffset;
+        }
+    }
+
+    /**
+     * Reads every item from this request's offset on, with up to parallelism pages requested at once, in the Hub's order.
+     */
+    public <T> List<T> fetchAll(final Class<T> itemClass, final int parallelism) throws IntegrationException {
+        return new HubParallelPageFetcher<T>(this, itemClass, parallelism, true).fetchAll();
+    }
+
+    /**
+     * @see HubParallelPageFetcher
+     */
+    public <T> List<T> fetchAll(final Type itemType, final int parallelism, final boolean ordered) throws IntegrationException {
+        return new HubParallelPageFetcher<T>(this, itemType, parallelism, ordered).fetchAll();
+    }
+
+    /**
+     * Iterates every item from this request's offset on, keeping up to pagesAhead pages downloading while the current one is consumed.
+     */
+    public <T> HubPrefetchingIterator<T> prefetch(final Class<T> itemClass, final int pagesAhead) {
+        return new HubPrefetchingIterator<>(this, itemClass, pagesAhead);
+    }
+
+    Request createGetRequest(final int pageOffset) {
+        final int originalOffset = offset;
+        offset = pageOffset;
+        try {
+            return restConnection.createGetRequest(buildHttpUrl());
+        } finally {
+            offset = originalOffset;
+        }
+    }
+
+    @Override
+    public HubPagedRequest addUrlVariable(final String name, final String value) {
+        super.addUrlVariable(name, value);
+        return this;
+    }
+
+    @Override
+    public HubPagedRequest addUrlVariables(final Map<String, String> urlVariables) {
+        super.addUrlVariables(urlVariables);
+        return this;
+    }
+
     @Override
     public HubPagedRequest addQueryParameter(final String queryParameterName, final String queryParameterValue) {
         super.addQueryParameter(queryParameterName, queryParameterValue);
@@ -0,0 +1,194 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.request;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.rest.exception.UncheckedIntegrationException;
+import com.google.gson.JsonParseException;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Reads every item of a HubPagedRequest with several page requests in flight at once. The first page is read on its own to learn the totalCount, then the remaining pages are requested asynchronously, never more than the
+ * parallelism at a time. The connection's maxRequestsPerHost also applies, so a parallelism above it only queues requests in the connection's dispatcher. If the Hub does not report a totalCount, the remaining pages are read
+ * one after the other. The first failed page, or an interrupt of the calling thread, cancels the page requests still in flight.
+ */
+public class HubParallelPageFetcher<T> {
+    private final HubPagedRequest hubPagedRequest;
+    private final Type itemType;
+    private final int parallelism;
+    private final boolean ordered;
+
+    /**
+     * @param ordered
+     *            if true the items are returned in the Hub's order, otherwise pages are appended as they arrive
+     */
+    public HubParallelPageFetcher(final HubPagedRequest hubPagedRequest, final Type itemType, final int parallelism, final boolean ordered) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1.");
+        }
+        this.hubPagedRequest = hubPagedRequest;
+        this.itemType = itemType;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+    }
+
+    public List<T> fetchAll() throws IntegrationException {
+        final int startOffset = Math.max(0, hubPagedRequest.offset);
+        final List<T> items = new ArrayList<>();
+        final int totalCount;
+        try (HubItemIterator<T> firstPage = hubPagedRequest.executeGetItems(itemType, startOffset)) {
+            firstPage.forEachRemaining(items::add);
+            totalCount = firstPage.getTotalCount();
+        } catch (final JsonParseException e) {
+            throw new IntegrationException(e);
+        }
+        if (items.isEmpty() || (totalCount < 0 && items.size() < hubPagedRequest.limit)) {
+            return items;
+        }
+        if (totalCount < 0) {
+            readSequentially(startOffset + items.size(), items);
+            return items;
+        }
+
+        // the Hub may return fewer items per page than the requested limit, so page by what it actually returned
+        final int pageSize = items.size();
+        final List<Request> pageRequests = new ArrayList<>();
+        for (int offset = startOffset + pageSize; offset < totalCount; offset += pageSize) {
+            pageRequests.add(hubPagedRequest.createGetRequest(offset));
+        }
+        for (final List<T> page : readConcurrently(pageRequests)) {
+            items.addAll(page);
+        }
+        return items;
+    }
+
+    private void readSequentially(final int offset, final List<T> items) throws IntegrationException {
+        try (HubPagedIterator<T> iterator = new HubPagedIterator<>(hubPagedRequest, itemType, offset)) {
+            iterator.forEachRemaining(items::add);
+        } catch (final UncheckedIntegrationException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<List<T>> readConcurrently(final List<Request> pageRequests) throws IntegrationException {
+        final List<List<T>> pages = new ArrayList<>(Collections.nCopies(pageRequests.size(), null));
+        final CompletableFuture<Void> allPages = new CompletableFuture<>();
+        final AtomicInteger nextPage = new AtomicInteger();
+        final AtomicInteger remainingPages = new AtomicInteger(pageRequests.size());
+        final AtomicInteger arrivalOrder = new AtomicInteger();
+        final List<CompletableFuture<Response>> pageCalls = new ArrayList<>();
+        if (pageRequests.isEmpty()) {
+            return pages;
+        }
+        allPages.whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                // a failed page or an interrupted caller leaves nobody to read the pages still in flight
+                cancelPageCalls(pageCalls);
+            }
+        });
+        for (int i = 0; i < Math.min(parallelism, pageRequests.size()); i++) {
+            readNextPage(pageRequests, pages, nextPage, remainingPages, arrivalOrder, allPages, pageCalls);
+        }
+        try {
+            allPages.get();
+        } catch (final InterruptedException e) {
+            allPages.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IntegrationException("Interrupted while reading the pages of " + hubPagedRequest.url, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IntegrationException) {
+                throw (IntegrationException) e.getCause();
+            }
+            throw new IntegrationException(e.getCause());
+        }
+        return pages;
+    }
+
+    private void readNextPage(final List<Request> pageRequests, final List<List<T>> pages, final AtomicInteger nextPage, final AtomicInteger remainingPages, final AtomicInteger arrivalOrder,
+            final CompletableFuture<Void> allPages, final List<CompletableFuture<Response>> pageCalls) {
+        final int pageIndex = nextPage.getAndIncrement();
+        if (pageIndex >= pageRequests.size() || allPages.isDone()) {
+            return;
+        }
+        final CompletableFuture<Response> pageCall = hubPagedRequest.restConnection.createResponseAsync(pageRequests.get(pageIndex));
+        synchronized (pageCalls) {
+            pageCalls.add(pageCall);
+        }
+        if (allPages.isCompletedExceptionally()) {
+            // allPages failed while this call was being started
+            pageCall.cancel(false);
+        }
+        pageCall.thenApply(this::readPage).whenComplete((page, throwable) -> {
+            synchronized (pageCalls) {
+                pageCalls.remove(pageCall);
+            }
+            if (throwable != null) {
+                allPages.completeExceptionally(throwable instanceof CompletionException ? throwable.getCause() : throwable);
+                return;
+            }
+            synchronized (pages) {
+                pages.set(ordered ? pageIndex : arrivalOrder.getAndIncrement(), page);
+            }
+            if (remainingPages.decrementAndGet() == 0) {
+                allPages.complete(null);
+            } else {
+                readNextPage(pageRequests, pages, nextPage, remainingPages, arrivalOrder, allPages, pageCalls);
+            }
+        });
+    }
+
+    private void cancelPageCalls(final List<CompletableFuture<Response>> pageCalls) {
+        final List<CompletableFuture<Response>> inFlight;
+        synchronized (pageCalls) {
+            // cancelling runs the calls' own completion, which removes them from pageCalls
+            inFlight = new ArrayList<>(pageCalls);
+        }
+        for (final CompletableFuture<Response> pageCall : inFlight) {
+            pageCall.cancel(false);
+        }
+    }
+
+    private List<T> readPage(final Response response) {
+        final List<T> page = new ArrayList<>();
+        try (HubItemIterator<T> iterator = new HubItemIterator<>(response, hubPagedRequest.restConnection.gson, itemType)) {
+            iterator.forEachRemaining(page::add);
+        } catch (final IOException | JsonParseException e) {
+            throw new CompletionException(new IntegrationException(e));
+        }
+        return page;
+    }
+
+}
@@ -0,0 +1,215 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.request;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.rest.exception.UncheckedIntegrationException;
+import com.google.gson.JsonParseException;
+
+import okhttp3.Response;
+
+/**
+ * Iterates the items of every page of a HubPagedRequest while the following pages download in the background. Once the first page has reported the totalCount, up to pagesAhead page requests are kept in flight ahead of the
+ * page being consumed, so at most pagesAhead + 1 decoded pages are held at a time. Closing the iterator cancels the pages still in flight, so close it when you stop early. A failed page request surfaces as an
+ * UncheckedIntegrationException.
+ */
+public class HubPrefetchingIterator<T> implements Iterator<T>, Closeable {
+    private final HubPagedRequest hubPagedRequest;
+    private final Type itemType;
+    private final int pagesAhead;
+    private final int startOffset;
+
+    private final Deque<PendingPage<T>> pendingPages = new ArrayDeque<>();
+    private Iterator<T> currentPage = Collections.emptyIterator();
+    private int nextOffset;
+    private int pageSize;
+    private int totalCount = -1;
+    private int pageCount;
+    private boolean lastPageRequested;
+    private boolean finished;
+
+    public HubPrefetchingIterator(final HubPagedRequest hubPagedRequest, final Type itemType, final int pagesAhead) {
+        if (pagesAhead < 0) {
+            throw new IllegalArgumentException("The number of pages to prefetch cannot be negative.");
+        }
+        this.hubPagedRequest = hubPagedRequest;
+        this.itemType = itemType;
+        this.pagesAhead = pagesAhead;
+        this.startOffset = Math.max(0, hubPagedRequest.offset);
+        this.nextOffset = startOffset;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            if (finished) {
+                return false;
+            }
+            if (pendingPages.isEmpty()) {
+                requestPage();
+                if (pendingPages.isEmpty()) {
+                    close();
+                    return false;
+                }
+            }
+            final Page<T> page = await(pendingPages.poll());
+            pageCount++;
+            if (page.totalCount >= 0) {
+                totalCount = page.totalCount;
+            }
+            if (pageCount == 1 && totalCount >= 0 && !page.items.isEmpty()) {
+                // the Hub may return fewer items per page than the requested limit, so page by what it actually returned
+                pageSize = page.items.size();
+                nextOffset = startOffset + pageSize;
+            }
+            if (page.items.isEmpty() || (totalCount < 0 && page.items.size() < pageSize)) {
+                // the end of the results, whatever else is in flight is past it
+                close();
+            } else {
+                fillPrefetchWindow();
+            }
+            currentPage = page.items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    /**
+     * @return the totalCount reported by the Hub, or -1 if no page has reported it yet
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the number of pages handed to the consumer so far
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * @return the number of page requests currently in flight or waiting to be consumed
+     */
+    public int getPendingPageCount() {
+        return pendingPages.size();
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        for (final PendingPage<T> pendingPage : pendingPages) {
+            pendingPage.response.cancel(false);
+        }
+        pendingPages.clear();
+    }
+
+    private void fillPrefetchWindow() {
+        while (pendingPages.size() < pagesAhead && !lastPageRequested) {
+            requestPage();
+        }
+    }
+
+    private void requestPage() {
+        if (lastPageRequested || (totalCount >= 0 && nextOffset >= totalCount)) {
+            lastPageRequested = true;
+            return;
+        }
+        final CompletableFuture<Response> response = hubPagedRequest.restConnection.createResponseAsync(hubPagedRequest.createGetRequest(nextOffset));
+        if (pageSize == 0) {
+            // the limit is only settled once the request has been built
+            pageSize = hubPagedRequest.limit;
+        }
+        nextOffset += pageSize;
+        pendingPages.add(new PendingPage<>(response, response.thenApply(this::readPage)));
+    }
+
+    private Page<T> await(final PendingPage<T> pendingPage) {
+        try {
+            return pendingPage.page.get();
+        } catch (final InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new UncheckedIntegrationException(new IntegrationException("Interrupted while waiting for a page of " + hubPagedRequest.url, e));
+        } catch (final ExecutionException e) {
+            close();
+            if (e.getCause() instanceof IntegrationException) {
+                throw new UncheckedIntegrationException((IntegrationException) e.getCause());
+            }
+            throw new UncheckedIntegrationException(new IntegrationException(e.getCause()));
+        }
+    }
+
+    private Page<T> readPage(final Response response) {
+        final List<T> items = new ArrayList<>();
+        try (HubItemIterator<T> iterator = new HubItemIterator<>(response, hubPagedRequest.restConnection.gson, itemType)) {
+            iterator.forEachRemaining(items::add);
+            return new Page<>(items, iterator.getTotalCount());
+        } catch (final IOException | JsonParseException e) {
+            throw new CompletionException(new IntegrationException(e));
+        }
+    }
+
+    private static class PendingPage<T> {
+        private final CompletableFuture<Response> response;
+        private final CompletableFuture<Page<T>> page;
+
+        private PendingPage(final CompletableFuture<Response> response, final CompletableFuture<Page<T>> page) {
+            this.response = response;
+            this.page = page;
+        }
+    }
+
+    private static class Page<T> {
+        private final List<T> items;
+        private final int totalCount;
+
+        private Page(final List<T> items, final int totalCount) {
+            this.items = items;
+            this.totalCount = totalCount;
+        }
+    }
+
+}
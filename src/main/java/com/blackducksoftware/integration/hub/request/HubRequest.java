@@ -26,10 +26,13 @@ package com.blackducksoftware.integration.hub.request;
 import static com.blackducksoftware.integration.hub.RestConstants.QUERY_Q;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.RecursiveToStringStyle;
@@ -37,6 +40,9 @@ import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 
 import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.UrlTemplate;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 
 import okhttp3.HttpUrl;
 import okhttp3.Request;
@@ -51,6 +57,8 @@ public class HubRequest {
     public final List<String> urlSegments = new ArrayList<>();
     public final Map<String, String> queryParameters = new HashMap<>();
     public String q;
+    public UrlTemplate urlTemplate;
+    public final Map<String, String> urlVariables = new HashMap<>();
 
     public HubRequest(final RestConnection restConnection) {
         this.restConnection = restConnection;
@@ -118,16 +126,133 @@ public class HubRequest {
         }
     }
 
+    /**
+     * Decodes the response with the connection's Gson straight from the body's stream, without holding the body as a String.
+     */
+    public <T> T executeGetAs(final Class<T> clazz) throws IntegrationException {
+        return readJson(executeGet(), clazz);
+    }
+
+    public <T> T executeGetAs(final Type type) throws IntegrationException {
+        return readJson(executeGet(), type);
+    }
+
+    public <T> T executeEncodedFormPostAs(final Map<String, String> contentMap, final Class<T> clazz) throws IntegrationException {
+        return readJson(executeEncodedFormPost(contentMap), clazz);
+    }
+
+    public <T> T executePostAs(final String content, final Class<T> clazz) throws IntegrationException {
+        return readJson(executePost(content), clazz);
+    }
+
+    /**
+     * Decodes the items of the returned page one at a time as they are iterated. The caller must close the iterator.
+     */
+    public <T> HubItemIterator<T> executeGetItems(final Class<T> itemClass) throws IntegrationException {
+        return executeGetItems((Type) itemClass);
+    }
+
+    public <T> HubItemIterator<T> executeGetItems(final Type itemType) throws IntegrationException {
+        final Response response = executeGet();
+        try {
+            return new HubItemIterator<>(response, restConnection.gson, itemType);
+        } catch (final IOException | JsonParseException e) {
+            throw new IntegrationException(e);
+        }
+    }
+
+    public CompletableFuture<Response> executeGetAsync() {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createGetRequest(httpUrl);
+        return restConnection.createResponseAsync(request);
+    }
+
+    public CompletableFuture<Response> executeGetAsync(final String mediaType) {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createGetRequest(httpUrl, mediaType);
+        return restConnection.createResponseAsync(request);
+    }
+
+    public CompletableFuture<Response> executeEncodedFormPostAsync(final Map<String, String> contentMap) {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createPostRequest(httpUrl, restConnection.createEncodedFormBody(contentMap));
+        return restConnection.createResponseAsync(request);
+    }
+
+    public CompletableFuture<Response> executePostAsync(final String content) {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createPostRequest(httpUrl, restConnection.createJsonRequestBody(content));
+        return restConnection.createResponseAsync(request);
+    }
+
+    public CompletableFuture<Response> executePostAsync(final String mediaType, final String content) {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createPostRequest(httpUrl, restConnection.createJsonRequestBody(mediaType, content));
+        return restConnection.createResponseAsync(request);
+    }
+
+    public CompletableFuture<Response> executePostAsync(final String mediaType, final File file) {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createPostRequest(httpUrl, restConnection.createFileRequestBody(mediaType, file));
+        return restConnection.createResponseAsync(request);
+    }
+
+    public CompletableFuture<Response> executeEncodedFormPutAsync(final Map<String, String> contentMap) {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createPutRequest(httpUrl, restConnection.createEncodedFormBody(contentMap));
+        return restConnection.createResponseAsync(request);
+    }
+
+    public CompletableFuture<Response> executePutAsync(final String content) {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createPutRequest(httpUrl, restConnection.createJsonRequestBody(content));
+        return restConnection.createResponseAsync(request);
+    }
+
+    public CompletableFuture<Response> executePutAsync(final String mediaType, final String content) {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createPutRequest(httpUrl, restConnection.createJsonRequestBody(mediaType, content));
+        return restConnection.createResponseAsync(request);
+    }
+
+    public CompletableFuture<Void> executeDeleteAsync() {
+        final HttpUrl httpUrl = buildHttpUrl();
+        final Request request = restConnection.createDeleteRequest(httpUrl);
+        final CompletableFuture<Response> response = restConnection.createResponseAsync(request);
+        final CompletableFuture<Void> deleted = response.thenAccept(Response::close);
+        deleted.whenComplete((ignored, throwable) -> {
+            if (deleted.isCancelled()) {
+                // reaches the call, or closes a response that arrived anyway
+                response.cancel(false);
+                response.thenAccept(Response::close);
+            }
+        });
+        return deleted;
+    }
+
+    private <T> T readJson(final Response response, final Type type) throws IntegrationException {
+        try (JsonReader jsonReader = restConnection.gson.newJsonReader(response.body().charStream())) {
+            return restConnection.gson.fromJson(jsonReader, type);
+        } catch (final IOException | JsonParseException e) {
+            throw new IntegrationException(e);
+        } finally {
+            response.close();
+        }
+    }
+
     protected void populateQueryParameters() {
         if (StringUtils.isNotBlank(q)) {
             queryParameters.put(QUERY_Q, q);
         }
     }
 
-    private HttpUrl buildHttpUrl() {
+    public HttpUrl buildHttpUrl() {
         populateQueryParameters();
+        if (urlTemplate != null) {
+            return urlTemplate.expand(urlVariables, queryParameters);
+        }
         if (StringUtils.isBlank(url)) {
-            url = restConnection.hubBaseUrl.toString();
+            return restConnection.createHttpUrl(urlSegments, queryParameters);
         }
         return restConnection.createHttpUrl(url, urlSegments, queryParameters);
     }
@@ -140,6 +265,16 @@ public class HubRequest {
         urlSegments.addAll(urlSegment);
     }
 
+    public HubRequest addUrlVariable(final String name, final String value) {
+        urlVariables.put(name, value);
+        return this;
+    }
+
+    public HubRequest addUrlVariables(final Map<String, String> urlVariables) {
+        this.urlVariables.putAll(urlVariables);
+        return this;
+    }
+
     public HubRequest addQueryParameter(final String queryParameterName, final String queryParameterValue) {
         this.queryParameters.put(queryParameterName, queryParameterValue);
         return this;
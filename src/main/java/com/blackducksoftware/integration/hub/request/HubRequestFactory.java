@@ -24,8 +24,10 @@
 package com.blackducksoftware.integration.hub.request;
 
 import java.util.List;
+import java.util.Map;
 
 import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.UrlTemplate;
 
 public class HubRequestFactory {
     private final RestConnection restConnection;
@@ -94,6 +96,14 @@ public class HubRequestFactory {
         return hubPagedRequest;
     }
 
+    public HubPagedRequest createPagedRequest(final int itemsPerPage, final UrlTemplate urlTemplate, final Map<String, String> urlVariables) {
+        final HubPagedRequest hubPagedRequest = new HubPagedRequest(restConnection);
+        hubPagedRequest.limit = itemsPerPage;
+        hubPagedRequest.urlTemplate = urlTemplate;
+        hubPagedRequest.addUrlVariables(urlVariables);
+        return hubPagedRequest;
+    }
+
     public HubRequest createRequest(final List<String> urlSegments) {
         final HubRequest hubRequest = new HubRequest(restConnection);
         hubRequest.addUrlSegments(urlSegments);
@@ -106,6 +116,13 @@ public class HubRequestFactory {
         return hubRequest;
     }
 
+    public HubRequest createRequest(final UrlTemplate urlTemplate, final Map<String, String> urlVariables) {
+        final HubRequest hubRequest = new HubRequest(restConnection);
+        hubRequest.urlTemplate = urlTemplate;
+        hubRequest.addUrlVariables(urlVariables);
+        return hubRequest;
+    }
+
     public HubRequest createRequest() {
         return new HubRequest(restConnection);
     }
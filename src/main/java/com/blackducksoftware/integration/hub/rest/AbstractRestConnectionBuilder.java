@@ -23,21 +23,45 @@
  */
 package com.blackducksoftware.integration.hub.rest;
 
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
+
 import com.blackducksoftware.integration.builder.AbstractBuilder;
 import com.blackducksoftware.integration.exception.EncryptionException;
+import com.blackducksoftware.integration.hub.gson.HubTypeAdapterFactory;
 import com.blackducksoftware.integration.hub.proxy.ProxyInfo;
 import com.blackducksoftware.integration.hub.proxy.ProxyInfoBuilder;
+import com.blackducksoftware.integration.hub.rest.circuitbreaker.CircuitBreakerRegistry;
+import com.blackducksoftware.integration.hub.rest.hedge.HedgingPolicy;
+import com.blackducksoftware.integration.hub.rest.metrics.RestMetricsListener;
+import com.blackducksoftware.integration.hub.rest.ratelimit.RequestRateLimiter;
+import com.blackducksoftware.integration.hub.rest.retry.RetryPolicy;
 import com.blackducksoftware.integration.log.IntLogger;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
 
 public abstract class AbstractRestConnectionBuilder<C extends RestConnection> extends AbstractBuilder<C> {
 
     private String baseUrl;
     private int timeout = 120;
+    private int maxIdleConnections = RestConnection.DEFAULT_MAX_IDLE_CONNECTIONS;
+    private int keepAliveDuration = RestConnection.DEFAULT_KEEP_ALIVE_DURATION;
+    private int maxRequests = RestConnection.DEFAULT_MAX_REQUESTS;
+    private int maxRequestsPerHost = RestConnection.DEFAULT_MAX_REQUESTS_PER_HOST;
+    private HttpProtocolMode protocolMode = HttpProtocolMode.HTTP_2;
+    private String cacheDirectory;
+    private long cacheMaxSize = RestConnection.DEFAULT_CACHE_MAX_SIZE;
+    private int staleWhileRevalidate;
+    private RetryPolicy retryPolicy = RetryPolicy.NO_RETRY;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private RequestRateLimiter rateLimiter;
+    private HedgingPolicy hedgingPolicy;
+    private RestMetricsListener metricsListener;
     private String proxyHost;
     private int proxyPort;
     private String proxyUsername;
@@ -46,15 +70,32 @@ public abstract class AbstractRestConnectionBuilder<C extends RestConnection> ex
     private IntLogger logger;
     private boolean alwaysTrustServerCertificate;
     private Map<String, String> commonRequestHeaders = new HashMap<>();
+    private final HubTypeAdapterFactory typeAdapterFactory = new HubTypeAdapterFactory();
 
     @Override
     public C buildObject() {
         final ProxyInfo proxyInfo = getProxyInfo();
         final C connection = createConnection(proxyInfo);
         connection.alwaysTrustServerCertificate = alwaysTrustServerCertificate;
+        connection.maxIdleConnections = maxIdleConnections;
+        connection.keepAliveDuration = keepAliveDuration;
+        connection.maxRequests = maxRequests;
+        connection.maxRequestsPerHost = maxRequestsPerHost;
+        connection.protocolMode = protocolMode;
+        connection.retryPolicy = retryPolicy;
+        connection.circuitBreakerRegistry = circuitBreakerRegistry;
+        connection.rateLimiter = rateLimiter;
+        connection.hedgingPolicy = hedgingPolicy;
+        connection.metricsListener = metricsListener;
+        if (StringUtils.isNotBlank(cacheDirectory)) {
+            connection.cacheDirectory = new File(cacheDirectory);
+            connection.cacheMaxSize = cacheMaxSize;
+            connection.staleWhileRevalidate = staleWhileRevalidate;
+        }
         if (!this.commonRequestHeaders.isEmpty()) {
             connection.commonRequestHeaders.putAll(this.commonRequestHeaders);
         }
+        connection.typeAdapterFactory.registerAll(typeAdapterFactory);
         return connection;
     }
 
@@ -74,6 +115,17 @@ public abstract class AbstractRestConnectionBuilder<C extends RestConnection> ex
         commonRequestHeaders.put(headerName, headerValue);
     }
 
+    /**
+     * Binds the class with the given adapter instead of reflection in the connection's Gson.
+     */
+    public <T> void applyTypeAdapter(final Class<T> clazz, final TypeAdapter<T> typeAdapter) {
+        typeAdapterFactory.registerTypeAdapter(clazz, typeAdapter);
+    }
+
+    public void applyTypeAdapterFactory(final TypeAdapterFactory typeAdapterFactory) {
+        this.typeAdapterFactory.registerTypeAdapterFactory(typeAdapterFactory);
+    }
+
     public void applyProxyInfo(final ProxyInfo proxyInfo) {
         try {
             setProxyHost(proxyInfo.getHost());
@@ -110,6 +162,144 @@ public abstract class AbstractRestConnectionBuilder<C extends RestConnection> ex
         this.timeout = timeout;
     }
 
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public void setMaxIdleConnections(final int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+    }
+
+    /**
+     * @return the pooled connection keep alive duration in seconds
+     */
+    public int getKeepAliveDuration() {
+        return keepAliveDuration;
+    }
+
+    public void setKeepAliveDuration(final int keepAliveDuration) {
+        this.keepAliveDuration = keepAliveDuration;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public void setMaxRequests(final int maxRequests) {
+        this.maxRequests = maxRequests;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public void setMaxRequestsPerHost(final int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    public HttpProtocolMode getProtocolMode() {
+        return protocolMode;
+    }
+
+    /**
+     * Defaults to HTTP_2, which is OkHttp's own default of HTTP/2 with a fall back to HTTP/1.1. HTTP_1_1 is an opt-out for proxies or servers that mishandle HTTP/2.
+     */
+    public void setProtocolMode(final HttpProtocolMode protocolMode) {
+        this.protocolMode = protocolMode;
+    }
+
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Enables the HTTP response cache in this directory. Connections configured with the same directory and authenticated as the same user share one cache, in a
+     * subdirectory named after a hash of the user, so responses are never served to another user.
+     */
+    public void setCacheDirectory(final String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    /**
+     * @param cacheMaxSize
+     *            in bytes
+     */
+    public void setCacheMaxSize(final long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public int getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * @param staleWhileRevalidate
+     *            how many seconds past expiry a cached GET response may still be served while it is revalidated in the background, 0 to disable
+     */
+    public void setStaleWhileRevalidate(final int staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Controls how requests that fail with an IOException or an unsuccessful status are retried. The default is RetryPolicy.NO_RETRY.
+     */
+    public void setRetryPolicy(final RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public CircuitBreakerRegistry getCircuitBreakerRegistry() {
+        return circuitBreakerRegistry;
+    }
+
+    /**
+     * Requests are only guarded by a circuit breaker when a registry is set. Connections built with the same registry share the per host circuit breakers.
+     */
+    public void setCircuitBreakerRegistry(final CircuitBreakerRegistry circuitBreakerRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+    }
+
+    public RequestRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Requests are only throttled when a rate limiter is set. Connections built with the same rate limiter share its budget.
+     */
+    public void setRateLimiter(final RequestRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * GET and HEAD requests are only hedged when a hedging policy is set. Connections built with the same policy share its latency samples and its hedge budget. Duplicates count against the connection's own dispatcher limits (64
+     * requests and 5 requests per host by default) and no duplicate is sent while calls are queued behind them, so with more than a few concurrent requests to one Hub raise setMaxRequestsPerHost(int) as well.
+     */
+    public void setHedgingPolicy(final HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    public RestMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * When set, the network phase timings of every call (dns, connect, TLS, request write, time to first byte and body read) are reported to the listener.
+     */
+    public void setMetricsListener(final RestMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
     public String getProxyHost() {
         return proxyHost;
     }
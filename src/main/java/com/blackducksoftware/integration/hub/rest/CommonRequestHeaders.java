@@ -0,0 +1,175 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import okhttp3.Headers;
+
+/**
+ * The headers added to every request of a RestConnection. Changes are copy-on-write and publish a new immutable Headers snapshot atomically, so building a request only reads the current snapshot and never races with the authenticators that update it.
+ * As a Map, header names are case insensitive, putting a null value removes the header, and the entry set iterates over the snapshot taken when the iteration starts.
+ */
+public class CommonRequestHeaders extends AbstractMap<String, String> {
+    private static final Headers EMPTY = Headers.of();
+
+    private final AtomicReference<Headers> snapshot = new AtomicReference<>(EMPTY);
+    private final Set<Entry<String, String>> entrySet = new HeaderEntrySet();
+
+    /**
+     * The current headers, safe to hand to a Request.Builder without copying.
+     */
+    public Headers getHeaders() {
+        return snapshot.get();
+    }
+
+    @Override
+    public String get(final Object name) {
+        return name instanceof String ? snapshot.get().get((String) name) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object name) {
+        return get(name) != null;
+    }
+
+    /**
+     * Sets the header, replacing any existing value for the same name.
+     */
+    @Override
+    public String put(final String name, final String value) {
+        if (value == null) {
+            return remove(name);
+        }
+        return update(headers -> value.equals(headers.get(name)) ? headers : headers.newBuilder().set(name, value).build()).get(name);
+    }
+
+    @Override
+    public void putAll(final Map<? extends String, ? extends String> headers) {
+        update(current -> {
+            final Headers.Builder builder = current.newBuilder();
+            for (final Entry<? extends String, ? extends String> header : headers.entrySet()) {
+                if (header.getValue() == null) {
+                    builder.removeAll(header.getKey());
+                } else {
+                    builder.set(header.getKey(), header.getValue());
+                }
+            }
+            return builder.build();
+        });
+    }
+
+    @Override
+    public String remove(final Object name) {
+        if (!(name instanceof String)) {
+            return null;
+        }
+        final String headerName = (String) name;
+        return update(headers -> headers.get(headerName) == null ? headers : headers.newBuilder().removeAll(headerName).build()).get(headerName);
+    }
+
+    @Override
+    public void clear() {
+        snapshot.set(EMPTY);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return snapshot.get().size() == 0;
+    }
+
+    @Override
+    public int size() {
+        return snapshot.get().names().size();
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * @return the headers before the change
+     */
+    private Headers update(final UnaryOperator<Headers> change) {
+        return snapshot.getAndUpdate(change);
+    }
+
+    private class HeaderEntrySet extends AbstractSet<Entry<String, String>> {
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+            final Headers headers = snapshot.get();
+            final Iterator<String> names = headers.names().iterator();
+            return new Iterator<Entry<String, String>>() {
+                private String current;
+
+                @Override
+                public boolean hasNext() {
+                    return names.hasNext();
+                }
+
+                @Override
+                public Entry<String, String> next() {
+                    current = names.next();
+                    return new HeaderEntry(current, headers.get(current));
+                }
+
+                @Override
+                public void remove() {
+                    if (current == null) {
+                        throw new IllegalStateException();
+                    }
+                    CommonRequestHeaders.this.remove(current);
+                    current = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return CommonRequestHeaders.this.size();
+        }
+    }
+
+    private class HeaderEntry extends SimpleEntry<String, String> {
+        private static final long serialVersionUID = 1L;
+
+        private HeaderEntry(final String name, final String value) {
+            super(name, value);
+        }
+
+        @Override
+        public String setValue(final String value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+}
@@ -56,6 +56,11 @@ public class CredentialsRestConnection extends RestConnection {
         this.hubPassword = hubPassword;
     }
 
+    @Override
+    protected String getCacheScope() {
+        return "credentials " + hubUsername;
+    }
+
     @Override
     public void addBuilderAuthentication() throws IntegrationRestException {
         if (StringUtils.isNotBlank(hubUsername) && StringUtils.isNotBlank(hubPassword)) {
@@ -64,6 +64,15 @@ public class CredentialsRestConnectionBuilder extends AbstractRestConnectionBuil
         final CredentialsRestConnectionValidator validator = new CredentialsRestConnectionValidator();
         validator.setBaseUrl(getBaseUrl());
         validator.setTimeout(getTimeout());
+        validator.setMaxIdleConnections(getMaxIdleConnections());
+        validator.setKeepAliveDuration(getKeepAliveDuration());
+        validator.setMaxRequests(getMaxRequests());
+        validator.setMaxRequestsPerHost(getMaxRequestsPerHost());
+        validator.setProtocolMode(getProtocolMode());
+        validator.setCacheDirectory(getCacheDirectory());
+        validator.setCacheMaxSize(getCacheMaxSize());
+        validator.setStaleWhileRevalidate(getStaleWhileRevalidate());
+        validator.setRetryPolicy(getRetryPolicy());
         validator.setUsername(getUsername());
         validator.setPassword(getPassword());
         validator.setProxyHost(getProxyHost());
@@ -0,0 +1,55 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.Protocol;
+
+/**
+ * The HTTP versions a RestConnection offers to the Hub. HTTP_2 is the default, HTTP_1_1 is an opt-out for proxies or servers that mishandle HTTP/2.
+ */
+public enum HttpProtocolMode {
+    /**
+     * Only speak HTTP/1.1. An opt-out from the HTTP_2 default.
+     */
+    HTTP_1_1(Protocol.HTTP_1_1),
+    /**
+     * The default. Negotiate HTTP/2 with ALPN over TLS, falling back to HTTP/1.1 when the server or the platform does not support it. Plain http connections always use HTTP/1.1.
+     */
+    HTTP_2(Protocol.HTTP_2, Protocol.HTTP_1_1);
+
+    private final List<Protocol> protocols;
+
+    private HttpProtocolMode(final Protocol... protocols) {
+        this.protocols = Collections.unmodifiableList(Arrays.asList(protocols));
+    }
+
+    public List<Protocol> getProtocols() {
+        return protocols;
+    }
+
+}
@@ -0,0 +1,264 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest;
+
+import java.io.File;
+import java.security.GeneralSecurityException;
+import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import com.blackducksoftware.integration.exception.EncryptionException;
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.certificate.CertTrustManager;
+import com.blackducksoftware.integration.hub.proxy.OkAuthenticator;
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo;
+
+import okhttp3.Authenticator;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * JVM-wide registry of the OkHttp state shared by all RestConnections. Every connection derives its client from one root client so the connection pool and dispatcher threads are shared, and the TLS and proxy components are cached
+ * because OkHttp will only reuse a pooled connection when they are the same instances. Connections that tune the pool share one instance per distinct setting. Every connection gets its own dispatcher, so its request limits are
+ * its own, but all dispatchers run on the root client's threads.
+ */
+public class RestClientRegistry {
+    private static final RestClientRegistry INSTANCE = new RestClientRegistry();
+
+    private final OkHttpClient rootClient = new OkHttpClient();
+    private final ConcurrentMap<Boolean, TlsConfiguration> tlsConfigurations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ProxyInfo, Authenticator> proxyAuthenticators = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConnectionPool> connectionPools = new ConcurrentHashMap<>();
+    private final ConcurrentMap<File, Cache> caches = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService backgroundExecutor;
+
+    public static RestClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    private RestClientRegistry() {
+        connectionPools.put(createKey(RestConnection.DEFAULT_MAX_IDLE_CONNECTIONS, RestConnection.DEFAULT_KEEP_ALIVE_DURATION), rootClient.connectionPool());
+    }
+
+    public OkHttpClient getRootClient() {
+        return rootClient;
+    }
+
+    public OkHttpClient.Builder newClientBuilder() {
+        return rootClient.newBuilder();
+    }
+
+    /**
+     * A single daemon thread used to delay work such as asynchronous retries, so no dispatcher thread is held while waiting.
+     */
+    public synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "Hub Rest Scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+    /**
+     * Daemon threads for blocking background work, such as re-authenticating after an asynchronous 401, that must not run on a dispatcher thread or the scheduler. Idle threads are discarded after a minute.
+     */
+    public synchronized ExecutorService getBackgroundExecutor() {
+        if (backgroundExecutor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            backgroundExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                final Thread thread = new Thread(runnable, "Hub Rest Worker " + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return backgroundExecutor;
+    }
+
+    /**
+     * @param keepAliveDuration
+     *            in seconds
+     */
+    public ConnectionPool getConnectionPool(final int maxIdleConnections, final int keepAliveDuration) {
+        final String key = createKey(maxIdleConnections, keepAliveDuration);
+        ConnectionPool connectionPool = connectionPools.get(key);
+        if (connectionPool == null) {
+            final ConnectionPool newConnectionPool = new ConnectionPool(maxIdleConnections, keepAliveDuration, TimeUnit.SECONDS);
+            connectionPool = connectionPools.putIfAbsent(key, newConnectionPool);
+            if (connectionPool == null) {
+                connectionPool = newConnectionPool;
+            }
+        }
+        return connectionPool;
+    }
+
+    /**
+     * A new dispatcher with its own request limits, running its calls on the root client's threads. The limits are per dispatcher, so each connection should keep the one it was given.
+     */
+    public Dispatcher createDispatcher(final int maxRequests, final int maxRequestsPerHost) {
+        final Dispatcher dispatcher = new Dispatcher(rootClient.dispatcher().executorService());
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        return dispatcher;
+    }
+
+    /**
+     * OkHttp requires a single Cache instance per directory, so the first maxSize requested for a directory wins.
+     */
+    public Cache getCache(final File cacheDirectory, final long maxSize) {
+        final File key = cacheDirectory.getAbsoluteFile();
+        Cache cache = caches.get(key);
+        if (cache == null) {
+            final Cache newCache = new Cache(key, maxSize);
+            cache = caches.putIfAbsent(key, newCache);
+            if (cache == null) {
+                cache = newCache;
+            }
+        }
+        return cache;
+    }
+
+    public TlsConfiguration getTlsConfiguration(final boolean alwaysTrustServerCertificate) throws IntegrationException {
+        TlsConfiguration tlsConfiguration = tlsConfigurations.get(alwaysTrustServerCertificate);
+        if (tlsConfiguration == null) {
+            final TlsConfiguration newConfiguration = createTlsConfiguration(alwaysTrustServerCertificate);
+            tlsConfiguration = tlsConfigurations.putIfAbsent(alwaysTrustServerCertificate, newConfiguration);
+            if (tlsConfiguration == null) {
+                tlsConfiguration = newConfiguration;
+            }
+        }
+        return tlsConfiguration;
+    }
+
+    public Authenticator getProxyAuthenticator(final ProxyInfo proxyInfo) throws IntegrationException {
+        Authenticator authenticator = proxyAuthenticators.get(proxyInfo);
+        if (authenticator == null) {
+            final Authenticator newAuthenticator;
+            try {
+                newAuthenticator = new OkAuthenticator(proxyInfo.getUsername(), proxyInfo.getDecryptedPassword());
+            } catch (IllegalArgumentException | EncryptionException ex) {
+                throw new IntegrationException(ex);
+            }
+            authenticator = proxyAuthenticators.putIfAbsent(proxyInfo, newAuthenticator);
+            if (authenticator == null) {
+                authenticator = newAuthenticator;
+            }
+        }
+        return authenticator;
+    }
+
+    private String createKey(final int first, final int second) {
+        return first + ":" + second;
+    }
+
+    private TlsConfiguration createTlsConfiguration(final boolean alwaysTrustServerCertificate) throws IntegrationException {
+        X509TrustManager trustManager = null;
+        if (alwaysTrustServerCertificate) {
+            trustManager = new CertTrustManager();
+        } else {
+            trustManager = systemDefaultTrustManager();
+        }
+        final String version = System.getProperty("java.version");
+        SSLSocketFactory sSLSocketFactory = null;
+        if (version.startsWith("1.7") || version.startsWith("1.6")) {
+            // We do not need to do this for Java 8+
+            try {
+                // Java 7 does not enable TLS1.2 so we use our TLSSocketFactory to enable all protocols
+                sSLSocketFactory = new TLSSocketFactory(trustManager);
+            } catch (KeyManagementException | NoSuchAlgorithmException e) {
+                throw new IntegrationException(e);
+            }
+        } else {
+            sSLSocketFactory = systemDefaultSslSocketFactory(trustManager);
+        }
+        return new TlsConfiguration(sSLSocketFactory, trustManager);
+    }
+
+    private X509TrustManager systemDefaultTrustManager() throws IntegrationException {
+        try {
+            final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init((KeyStore) null);
+            final TrustManager[] trustManagers = trustManagerFactory.getTrustManagers();
+            if (trustManagers.length != 1 || !(trustManagers[0] instanceof X509TrustManager)) {
+                throw new IllegalStateException("Unexpected default trust managers:" + Arrays.toString(trustManagers));
+            }
+            return (X509TrustManager) trustManagers[0];
+        } catch (final GeneralSecurityException e) {
+            // The system has no TLS. Just give up.
+            throw new IntegrationException();
+        }
+    }
+
+    private SSLSocketFactory systemDefaultSslSocketFactory(final X509TrustManager trustManager) throws IntegrationException {
+        try {
+            final SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[] { trustManager }, null);
+            return sslContext.getSocketFactory();
+        } catch (final GeneralSecurityException e) {
+            // The system has no TLS. Just give up.
+            throw new IntegrationException(e);
+        }
+    }
+
+    public static class TlsConfiguration {
+        private final SSLSocketFactory sslSocketFactory;
+        private final X509TrustManager trustManager;
+
+        public TlsConfiguration(final SSLSocketFactory sslSocketFactory, final X509TrustManager trustManager) {
+            this.sslSocketFactory = sslSocketFactory;
+            this.trustManager = trustManager;
+        }
+
+        public SSLSocketFactory getSslSocketFactory() {
+            return sslSocketFactory;
+        }
+
+        public X509TrustManager getTrustManager() {
+            return trustManager;
+        }
+    }
+
+}
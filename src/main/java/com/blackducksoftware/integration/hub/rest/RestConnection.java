@@ -25,53 +25,64 @@ package com.blackducksoftware.integration.hub.rest;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.URL;
-import java.net.URLEncoder;
-import java.security.GeneralSecurityException;
-import java.security.KeyManagementException;
-import java.security.KeyStore;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.TrustManagerFactory;
-import javax.net.ssl.X509TrustManager;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.StringUtils;
 
-import com.blackducksoftware.integration.exception.EncryptionException;
 import com.blackducksoftware.integration.exception.IntegrationException;
-import com.blackducksoftware.integration.hub.certificate.CertTrustManager;
+import com.blackducksoftware.integration.hub.gson.HubTypeAdapterFactory;
+import com.blackducksoftware.integration.hub.gson.Iso8601DateCodec;
 import com.blackducksoftware.integration.hub.proxy.ProxyInfo;
+import com.blackducksoftware.integration.hub.rest.RestClientRegistry.TlsConfiguration;
+import com.blackducksoftware.integration.hub.rest.circuitbreaker.CircuitBreaker;
+import com.blackducksoftware.integration.hub.rest.circuitbreaker.CircuitBreakerRegistry;
+import com.blackducksoftware.integration.hub.rest.circuitbreaker.CircuitBreakerState;
+import com.blackducksoftware.integration.hub.rest.exception.CircuitBreakerOpenException;
 import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+import com.blackducksoftware.integration.hub.rest.exception.RateLimitExceededException;
+import com.blackducksoftware.integration.hub.rest.hedge.HedgedCall;
+import com.blackducksoftware.integration.hub.rest.hedge.HedgingPolicy;
+import com.blackducksoftware.integration.hub.rest.metrics.CallTimingEventListener;
+import com.blackducksoftware.integration.hub.rest.metrics.RestMetricsListener;
+import com.blackducksoftware.integration.hub.rest.ratelimit.RequestRateLimiter;
+import com.blackducksoftware.integration.hub.rest.retry.RetryPolicy;
 import com.blackducksoftware.integration.log.IntLogger;
 import com.blackducksoftware.integration.log.LogLevel;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParser;
 
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
 import okhttp3.FormBody;
 import okhttp3.Headers;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.Okio;
 
 /**
  * The parent class of all Hub connections.
@@ -81,28 +92,57 @@ public abstract class RestConnection {
 
     public static final String JSON_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSX";
 
-    public final Gson gson = new GsonBuilder().setDateFormat(JSON_DATE_FORMAT).create();
+    // the OkHttp defaults
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    public static final int DEFAULT_KEEP_ALIVE_DURATION = 300;
+    public static final int DEFAULT_MAX_REQUESTS = 64;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+
+    public static final long DEFAULT_CACHE_MAX_SIZE = 50L * 1024L * 1024L;
+
+    private static final String STALE_RESPONSE_WARNING = "110";
+
+    public final HubTypeAdapterFactory typeAdapterFactory = new HubTypeAdapterFactory();
+    public final Gson gson = new GsonBuilder().registerTypeAdapterFactory(typeAdapterFactory).create();
     public final JsonParser jsonParser = new JsonParser();
-    public final OkHttpClient.Builder builder = new OkHttpClient.Builder();
-    public final Map<String, String> commonRequestHeaders = new HashMap<>();
+    public final OkHttpClient.Builder builder = RestClientRegistry.getInstance().newClientBuilder();
+    private final CommonRequestHeaders commonRequestHeaderSnapshot = new CommonRequestHeaders();
+    public final Map<String, String> commonRequestHeaders = commonRequestHeaderSnapshot;
     public final URL hubBaseUrl;
     public int timeout = 120;
+    public int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+    public int keepAliveDuration = DEFAULT_KEEP_ALIVE_DURATION;
+    public int maxRequests = DEFAULT_MAX_REQUESTS;
+    public int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+    // HTTP/2 where the server supports it, HTTP_1_1 opts out
+    public HttpProtocolMode protocolMode = HttpProtocolMode.HTTP_2;
+    public RetryPolicy retryPolicy = RetryPolicy.NO_RETRY;
+    public CircuitBreakerRegistry circuitBreakerRegistry;
+    public RequestRateLimiter rateLimiter;
+    public HedgingPolicy hedgingPolicy;
+    public RestMetricsListener metricsListener;
+    public File cacheDirectory;
+    public long cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
+    public int staleWhileRevalidate = 0;
     private final ProxyInfo proxyInfo;
     public boolean alwaysTrustServerCertificate;
     public IntLogger logger;
 
-    private OkHttpClient client;
+    private volatile OkHttpClient client;
+    private Dispatcher dispatcher;
+    private volatile int connectionGeneration;
+    private final Object reconnectLock = new Object();
+    private CompletableFuture<Void> reconnectInFlight;
+    private final ConcurrentMap<String, CompletableFuture<Response>> revalidations = new ConcurrentHashMap<>();
+    private volatile Protocol negotiatedProtocol;
+    private volatile HttpUrl hubBaseHttpUrl;
 
     public static Date parseDateString(final String dateString) throws ParseException {
-        final SimpleDateFormat sdf = new SimpleDateFormat(JSON_DATE_FORMAT);
-        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return sdf.parse(dateString);
+        return Iso8601DateCodec.parseDate(dateString);
     }
 
     public static String formatDate(final Date date) {
-        final SimpleDateFormat sdf = new SimpleDateFormat(JSON_DATE_FORMAT);
-        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return sdf.format(date);
+        return Iso8601DateCodec.formatDate(date);
     }
 
     public RestConnection(final IntLogger logger, final URL hubBaseUrl, final int timeout, final ProxyInfo proxyInfo) {
@@ -112,63 +152,79 @@ public abstract class RestConnection {
         this.proxyInfo = proxyInfo;
     }
 
-    public void connect() throws IntegrationException {
+    public synchronized void connect() throws IntegrationException {
         addBuilderConnectionTimes();
+        addBuilderConnectionPool();
+        addBuilderProtocols();
+        addBuilderCache();
+        addBuilderEventListener();
         addBuilderProxyInformation();
         addBuilderAuthentication();
         addTlsConnectionInfo();
         setClient(builder.build());
         clientAuthenticate();
+        connectionGeneration++;
     }
 
-    public void addTlsConnectionInfo() throws IntegrationException {
-        if (hubBaseUrl.getProtocol().equalsIgnoreCase("https")) {
-            X509TrustManager trustManager = null;
-            if (alwaysTrustServerCertificate) {
-                trustManager = new CertTrustManager();
-            } else {
-                trustManager = systemDefaultTrustManager();
-            }
-            final String version = System.getProperty("java.version");
-            SSLSocketFactory sSLSocketFactory = null;
-            if (version.startsWith("1.7") || version.startsWith("1.6")) {
-                // We do not need to do this for Java 8+
-                try {
-                    // Java 7 does not enable TLS1.2 so we use our TLSSocketFactory to enable all protocols
-                    sSLSocketFactory = new TLSSocketFactory(trustManager);
-                } catch (KeyManagementException | NoSuchAlgorithmException e) {
-                    throw new IntegrationException(e);
-                }
-            } else {
-                sSLSocketFactory = systemDefaultSslSocketFactory(trustManager);
+    private synchronized void connectIfNeeded() throws IntegrationException {
+        if (client == null) {
+            connect();
+        }
+    }
+
+    private CompletableFuture<Void> connectAsync() {
+        final CompletableFuture<Void> connected = new CompletableFuture<>();
+        RestClientRegistry.getInstance().getBackgroundExecutor().execute(() -> {
+            try {
+                connectIfNeeded();
+                connected.complete(null);
+            } catch (final IntegrationException | RuntimeException e) {
+                connected.completeExceptionally(e);
             }
-            builder.sslSocketFactory(sSLSocketFactory, trustManager);
+        });
+        return connected;
+    }
+
+    /**
+     * Re-authenticates after a 401, unless another call already did so after the rejected call was sent.
+     */
+    private synchronized void reconnect(final int rejectedGeneration) throws IntegrationException {
+        if (connectionGeneration == rejectedGeneration) {
+            connect();
         }
     }
 
-    private X509TrustManager systemDefaultTrustManager() throws IntegrationException {
-        try {
-            final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
-            trustManagerFactory.init((KeyStore) null);
-            final TrustManager[] trustManagers = trustManagerFactory.getTrustManagers();
-            if (trustManagers.length != 1 || !(trustManagers[0] instanceof X509TrustManager)) {
-                throw new IllegalStateException("Unexpected default trust managers:" + Arrays.toString(trustManagers));
+    /**
+     * Re-authenticates on a background thread instead of the dispatcher thread that saw the 401. Asynchronous calls rejected at the same time share one reconnect.
+     */
+    private CompletableFuture<Void> reconnectAsync(final int rejectedGeneration) {
+        synchronized (reconnectLock) {
+            if (reconnectInFlight == null) {
+                final CompletableFuture<Void> started = new CompletableFuture<>();
+                reconnectInFlight = started;
+                RestClientRegistry.getInstance().getBackgroundExecutor().execute(() -> {
+                    try {
+                        reconnect(rejectedGeneration);
+                        started.complete(null);
+                    } catch (final IntegrationException | RuntimeException e) {
+                        started.completeExceptionally(e);
+                    } finally {
+                        synchronized (reconnectLock) {
+                            if (reconnectInFlight == started) {
+                                reconnectInFlight = null;
+                            }
+                        }
+                    }
+                });
             }
-            return (X509TrustManager) trustManagers[0];
-        } catch (final GeneralSecurityException e) {
-            // The system has no TLS. Just give up.
-            throw new IntegrationException();
+            return reconnectInFlight;
         }
     }
 
-    private SSLSocketFactory systemDefaultSslSocketFactory(final X509TrustManager trustManager) throws IntegrationException {
-        try {
-            final SSLContext sslContext = SSLContext.getInstance("TLS");
-            sslContext.init(null, new TrustManager[] { trustManager }, null);
-            return sslContext.getSocketFactory();
-        } catch (final GeneralSecurityException e) {
-            // The system has no TLS. Just give up.
-            throw new IntegrationException(e);
+    public void addTlsConnectionInfo() throws IntegrationException {
+        if (hubBaseUrl.getProtocol().equalsIgnoreCase("https")) {
+            final TlsConfiguration tlsConfiguration = RestClientRegistry.getInstance().getTlsConfiguration(alwaysTrustServerCertificate);
+            builder.sslSocketFactory(tlsConfiguration.getSslSocketFactory(), tlsConfiguration.getTrustManager());
         }
     }
 
@@ -182,14 +238,59 @@ public abstract class RestConnection {
         builder.readTimeout(timeout, TimeUnit.SECONDS);
     }
 
+    private void addBuilderConnectionPool() {
+        final RestClientRegistry registry = RestClientRegistry.getInstance();
+        builder.connectionPool(registry.getConnectionPool(maxIdleConnections, keepAliveDuration));
+        // kept across reconnects so calls still running on the previous client count against the same limits
+        if (dispatcher == null) {
+            dispatcher = registry.createDispatcher(maxRequests, maxRequestsPerHost);
+        } else {
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        }
+        builder.dispatcher(dispatcher);
+    }
+
+    private void addBuilderProtocols() {
+        builder.protocols(protocolMode.getProtocols());
+    }
+
+    private void addBuilderCache() {
+        if (cacheDirectory != null) {
+            builder.cache(RestClientRegistry.getInstance().getCache(new File(cacheDirectory, hashCacheScope(getCacheScope())), cacheMaxSize));
+        }
+    }
+
+    /**
+     * Whose responses this connection caches. OkHttp keys cached responses by url alone, so each scope gets its own subdirectory of the cache directory and a connection never reads what was cached for another user.
+     */
+    protected String getCacheScope() {
+        return "anonymous";
+    }
+
+    private String hashCacheScope(final String cacheScope) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(cacheScope.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void addBuilderEventListener() {
+        if (metricsListener != null) {
+            builder.eventListenerFactory(new CallTimingEventListener.Factory(metricsListener, logger));
+        }
+    }
+
     private void addBuilderProxyInformation() throws IntegrationException {
         if (shouldUseProxyForUrl(hubBaseUrl)) {
             builder.proxy(getProxy(hubBaseUrl));
-            try {
-                builder.proxyAuthenticator(new com.blackducksoftware.integration.hub.proxy.OkAuthenticator(this.proxyInfo.getUsername(), this.proxyInfo.getDecryptedPassword()));
-            } catch (IllegalArgumentException | EncryptionException ex) {
-                throw new IntegrationException(ex);
-            }
+            builder.proxyAuthenticator(RestClientRegistry.getInstance().getProxyAuthenticator(this.proxyInfo));
         }
     }
 
@@ -224,11 +325,15 @@ public abstract class RestConnection {
     }
 
     public HttpUrl createHttpUrl(final List<String> urlSegments, final Map<String, String> queryParameters) {
-        return createHttpUrl(hubBaseUrl.toString(), urlSegments, queryParameters);
+        return createHttpUrl(getHubBaseHttpUrl(), urlSegments, queryParameters);
     }
 
     public HttpUrl createHttpUrl(final String providedUrl, final List<String> urlSegments, final Map<String, String> queryParameters) {
-        final HttpUrl.Builder urlBuilder = HttpUrl.parse(providedUrl).newBuilder();
+        return createHttpUrl(HttpUrl.parse(providedUrl), urlSegments, queryParameters);
+    }
+
+    private HttpUrl createHttpUrl(final HttpUrl baseUrl, final List<String> urlSegments, final Map<String, String> queryParameters) {
+        final HttpUrl.Builder urlBuilder = baseUrl.newBuilder();
         if (urlSegments != null) {
             for (final String urlSegment : urlSegments) {
                 urlBuilder.addPathSegment(urlSegment);
@@ -236,23 +341,31 @@ public abstract class RestConnection {
         }
         if (queryParameters != null) {
             for (final Entry<String, String> queryParameter : queryParameters.entrySet()) {
-                try {
-                    // As of okhttp 3.8.0 the escaped characters are space, ", ', <, >, #, &, and =, so we need to
-                    // encode on our own
-                    // see HttpUrl.java, QUERY_COMPONENT_ENCODE_SET
-                    final String encodedKey = URLEncoder.encode(queryParameter.getKey(), "UTF-8");
-                    final String encodedVal = URLEncoder.encode(queryParameter.getValue(), "UTF-8");
-                    urlBuilder.addEncodedQueryParameter(encodedKey, encodedVal);
-                } catch (final UnsupportedEncodingException e) {
-                    if (logger != null) {
-                        logger.error(e);
-                    }
-                }
+                final String encodedKey = UrlTemplate.encodeQueryComponent(queryParameter.getKey());
+                final String encodedVal = UrlTemplate.encodeQueryComponent(queryParameter.getValue());
+                urlBuilder.addEncodedQueryParameter(encodedKey, encodedVal);
             }
         }
         return urlBuilder.build();
     }
 
+    /**
+     * Compiles a url template, such as /api/projects/{projectId}/versions?q={q}, relative to the Hub base url.
+     */
+    public UrlTemplate compileUrlTemplate(final String template) {
+        return UrlTemplate.compile(getHubBaseHttpUrl(), template);
+    }
+
+    /**
+     * The Hub base url, parsed once.
+     */
+    public HttpUrl getHubBaseHttpUrl() {
+        if (hubBaseHttpUrl == null) {
+            hubBaseHttpUrl = HttpUrl.get(hubBaseUrl);
+        }
+        return hubBaseHttpUrl;
+    }
+
     public RequestBody createJsonRequestBody(final String content) {
         return createJsonRequestBody("application/json", content);
     }
@@ -308,31 +421,120 @@ public abstract class RestConnection {
     }
 
     private Request.Builder getRequestBuilder(final Map<String, String> headers) {
-        final Request.Builder builder = new Request.Builder();
-        final Map<String, String> requestHeaders = new HashMap<>();
-        requestHeaders.putAll(commonRequestHeaders);
+        final Request.Builder builder = new Request.Builder().headers(commonRequestHeaderSnapshot.getHeaders());
         if (headers != null) {
-            requestHeaders.putAll(headers);
-        }
-        for (final Entry<String, String> header : requestHeaders.entrySet()) {
-            builder.addHeader(header.getKey(), header.getValue());
+            for (final Entry<String, String> header : headers.entrySet()) {
+                builder.header(header.getKey(), header.getValue());
+            }
         }
         return builder;
     }
 
     private Request createNewRequest(final Request request) {
         final Request.Builder builder = request.newBuilder();
-        for (final Map.Entry<String, String> entry : commonRequestHeaders.entrySet()) {
-            builder.header(entry.getKey(), entry.getValue());
+        final Headers headers = commonRequestHeaderSnapshot.getHeaders();
+        for (int i = 0, size = headers.size(); i < size; i++) {
+            builder.header(headers.name(i), headers.value(i));
         }
 
         return builder.build();
     }
 
+    /**
+     * The common request headers as an immutable snapshot, safe to hand to a Request.Builder without copying.
+     */
+    public Headers getCommonRequestHeaderSnapshot() {
+        return commonRequestHeaderSnapshot.getHeaders();
+    }
+
     public Response createResponse(final Request request) throws IntegrationException {
+        if (isStaleWhileRevalidateRequest(request)) {
+            return createStaleWhileRevalidateResponse(request);
+        }
         return handleExecuteClientCall(request);
     }
 
+    private boolean isStaleWhileRevalidateRequest(final Request request) {
+        return cacheDirectory != null && staleWhileRevalidate > 0 && "GET".equals(request.method()) && request.header("Cache-Control") == null;
+    }
+
+    /**
+     * Answers from the cache even when the cached response has been stale for up to staleWhileRevalidate seconds, and revalidates it in the background so the next caller sees the fresh copy.
+     */
+    private Response createStaleWhileRevalidateResponse(final Request request) throws IntegrationException {
+        final Response response = handleExecuteClientCall(allowStale(request));
+        revalidateIfStale(request, response);
+        return response;
+    }
+
+    private Request allowStale(final Request request) {
+        return request.newBuilder().cacheControl(new CacheControl.Builder().maxStale(staleWhileRevalidate, TimeUnit.SECONDS).build()).build();
+    }
+
+    /**
+     * The revalidation goes through the same retries, rate limiter and circuit breaker as any other call, and callers that see the same stale response while it is running do not start another one.
+     */
+    private void revalidateIfStale(final Request request, final Response response) {
+        if (response.networkResponse() != null || !isStale(response)) {
+            return;
+        }
+        final String cacheKey = request.url().toString();
+        final CompletableFuture<Response> revalidation = new CompletableFuture<>();
+        if (revalidations.putIfAbsent(cacheKey, revalidation) != null) {
+            return;
+        }
+        logMessage(LogLevel.TRACE, "revalidating stale cached response: " + request.url());
+        revalidation.whenComplete((revalidatedResponse, throwable) -> {
+            try {
+                if (throwable != null) {
+                    logMessage(LogLevel.DEBUG, String.format("Could not revalidate %s: %s", request.url(), throwable.getMessage()));
+                    return;
+                }
+                // reading the body is what writes a full (non-304) response into the cache
+                try {
+                    revalidatedResponse.body().source().readAll(Okio.blackhole());
+                } catch (final IOException e) {
+                    logMessage(LogLevel.DEBUG, String.format("Could not revalidate %s: %s", request.url(), e.getMessage()));
+                } finally {
+                    revalidatedResponse.close();
+                }
+            } finally {
+                revalidations.remove(cacheKey, revalidation);
+            }
+        });
+        handleExecuteClientCallAsync(request, 0, revalidation);
+    }
+
+    private boolean isStale(final Response response) {
+        for (final String warning : response.headers("Warning")) {
+            if (warning.startsWith(STALE_RESPONSE_WARNING)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Executes the request without blocking the calling thread. The future completes exceptionally with an IntegrationException on failure, and a 401 will reconnect and retry just as createResponse(Request request) does.
+     * Stale cached responses are served and revalidated the same way too. Cancelling the future cancels the call.
+     */
+    public CompletableFuture<Response> createResponseAsync(final Request request) {
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        final long start = System.currentTimeMillis();
+        logMessage(LogLevel.TRACE, "starting async request: " + request.url());
+        if (isStaleWhileRevalidateRequest(request)) {
+            handleExecuteClientCallAsync(allowStale(request), 0, future);
+            future.thenAccept(response -> revalidateIfStale(request, response));
+        } else {
+            handleExecuteClientCallAsync(request, 0, future);
+        }
+        future.whenComplete((response, throwable) -> {
+            final long end = System.currentTimeMillis();
+            logMessage(LogLevel.TRACE, String.format("completed async request: %s (%d ms)", request.url(), end - start));
+        });
+        return future;
+    }
+
     @Deprecated
     /**
      * @deprecated Please use createResponse(Request request) instead.
@@ -349,39 +551,294 @@ public abstract class RestConnection {
     }
 
     private Response handleExecuteClientCall(final Request request, final int retryCount) throws IntegrationException {
+        return handleExecuteClientCall(request, retryCount, 1, System.currentTimeMillis());
+    }
+
+    private Response handleExecuteClientCall(final Request request, final int retryCount, final int attempt, final long firstAttemptStart) throws IntegrationException {
         if (client != null) {
+            final URL url = request.url().url();
+            final String urlString = request.url().uri().toString();
+            if (alwaysTrustServerCertificate && url.getProtocol().equalsIgnoreCase("https") && logger != null) {
+                logger.debug("Automatically trusting the certificate for " + urlString);
+            }
+            logRequestHeaders(request);
+            waitForRateLimitPermit(request);
+            final CircuitBreaker circuitBreaker = acquireCircuitBreakerPermission(request);
+            final int generation = connectionGeneration;
+            final long callStart = System.currentTimeMillis();
+            final Response response;
             try {
-                final URL url = request.url().url();
-                final String urlString = request.url().uri().toString();
-                if (alwaysTrustServerCertificate && url.getProtocol().equalsIgnoreCase("https") && logger != null) {
-                    logger.debug("Automatically trusting the certificate for " + urlString);
+                response = executeCall(request);
+                recordCallOutcome(circuitBreaker, isServerFailure(response), callStart);
+            } catch (final IOException e) {
+                recordCallOutcome(circuitBreaker, true, callStart);
+                final long retryDelay = retryPolicy.getRetryDelay(request, null, e, attempt, System.currentTimeMillis() - firstAttemptStart);
+                if (retryDelay < 0) {
+                    throw new IntegrationException(e.getMessage(), e);
                 }
-                logRequestHeaders(request);
-                final Response response = client.newCall(request).execute();
-                if (!response.isSuccessful()) {
-                    try {
-                        if (response.code() == 401 && retryCount < 2) {
-                            connect();
-                            final Request newRequest = createNewRequest(request);
-                            return handleExecuteClientCall(newRequest, retryCount + 1);
-                        } else {
-                            throw new IntegrationRestException(response.code(), response.message(),
-                                    String.format("There was a problem trying to %s this item: %s. Error: %s %s", request.method(), urlString, response.code(), response.message()));
-                        }
-                    } finally {
-                        // request was un-successful make sure the response is closed to close the body
-                        response.close();
+                waitToRetry(request, e.getMessage(), attempt, retryDelay);
+                return handleExecuteClientCall(request, retryCount, attempt + 1, firstAttemptStart);
+            } catch (final RuntimeException e) {
+                // an unchecked failure still ends the call, so it has to settle its HALF_OPEN permission too
+                recordCallOutcome(circuitBreaker, true, callStart);
+                throw e;
+            }
+            if (!response.isSuccessful()) {
+                final long retryDelay;
+                try {
+                    if (response.code() == 401 && retryCount < 2) {
+                        reconnect(generation);
+                        final Request newRequest = createNewRequest(request);
+                        return handleExecuteClientCall(newRequest, retryCount + 1, attempt, firstAttemptStart);
                     }
+                    retryDelay = retryPolicy.getRetryDelay(request, response, null, attempt, System.currentTimeMillis() - firstAttemptStart);
+                    if (retryDelay < 0) {
+                        throw new IntegrationRestException(response.code(), response.message(),
+                                String.format("There was a problem trying to %s this item: %s. Error: %s %s", request.method(), urlString, response.code(), response.message()));
+                    }
+                } finally {
+                    // request was un-successful make sure the response is closed to close the body
+                    response.close();
                 }
-                logResponseHeaders(response);
-                return response;
-            } catch (final IOException e) {
-                throw new IntegrationException(e.getMessage(), e);
+                waitToRetry(request, String.valueOf(response.code()), attempt, retryDelay);
+                return handleExecuteClientCall(request, retryCount, attempt + 1, firstAttemptStart);
             }
+            negotiatedProtocol = response.protocol();
+            logResponseHeaders(response);
+            return response;
         } else {
-            connect();
+            connectIfNeeded();
             final Request newRequest = createNewRequest(request);
-            return handleExecuteClientCall(newRequest, retryCount);
+            return handleExecuteClientCall(newRequest, retryCount, attempt, firstAttemptStart);
+        }
+    }
+
+    private Response executeCall(final Request request) throws IOException {
+        if (isHedgedRequest(request)) {
+            return createHedgedCall(request).execute();
+        }
+        return client.newCall(request).execute();
+    }
+
+    /**
+     * @return cancels the enqueued call
+     */
+    private Runnable enqueueCall(final Request request, final Callback callback) {
+        if (isHedgedRequest(request)) {
+            final HedgedCall hedgedCall = createHedgedCall(request);
+            hedgedCall.enqueue(callback);
+            return hedgedCall::cancel;
+        }
+        final Call call = client.newCall(request);
+        call.enqueue(callback);
+        return call::cancel;
+    }
+
+    private boolean isHedgedRequest(final Request request) {
+        return hedgingPolicy != null && hedgingPolicy.isHedgeable(request);
+    }
+
+    /**
+     * The duplicate is rebuilt with the current common headers, so a hedge sent after another request re-authenticated does not repeat a stale token. Whichever call answers first is handed back, so a 401 still goes through
+     * the single reconnect and retry in the caller while the other call is cancelled. A duplicate is never sent to a host whose circuit breaker is not closed, and it needs a permit from the rate limiter without waiting.
+     */
+    private HedgedCall createHedgedCall(final Request request) {
+        return new HedgedCall(client, request, () -> createNewRequest(request), hedgingPolicy, () -> isHedgeAllowed(request), RestClientRegistry.getInstance().getScheduler());
+    }
+
+    private boolean isHedgeAllowed(final Request request) {
+        if (circuitBreakerRegistry != null && circuitBreakerRegistry.getCircuitBreaker(request.url()).getState() != CircuitBreakerState.CLOSED) {
+            return false;
+        }
+        return rateLimiter == null || rateLimiter.getBucket(request).tryAcquire();
+    }
+
+    private long reserveRateLimitPermit(final Request request) throws RateLimitExceededException {
+        if (rateLimiter == null) {
+            return 0;
+        }
+        final long waitNanos = rateLimiter.reserve(request);
+        if (waitNanos < 0) {
+            throw new RateLimitExceededException(String.format("The request rate limit was reached, not trying to %s %s", request.method(), request.url()));
+        }
+        return waitNanos;
+    }
+
+    private void waitForRateLimitPermit(final Request request) throws IntegrationException {
+        final long waitNanos = reserveRateLimitPermit(request);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IntegrationException("Interrupted while waiting for the request rate limit " + request.url(), e);
+            }
+        }
+    }
+
+    private CircuitBreaker acquireCircuitBreakerPermission(final Request request) throws CircuitBreakerOpenException {
+        if (circuitBreakerRegistry == null) {
+            return null;
+        }
+        final CircuitBreaker circuitBreaker = circuitBreakerRegistry.getCircuitBreaker(request.url());
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new CircuitBreakerOpenException(circuitBreaker.getHost(),
+                    String.format("The circuit breaker for %s is %s, not trying to %s %s", circuitBreaker.getHost(), circuitBreaker.getState(), request.method(), request.url()));
+        }
+        return circuitBreaker;
+    }
+
+    private void recordCallOutcome(final CircuitBreaker circuitBreaker, final boolean failed, final long callStart) {
+        if (circuitBreaker != null) {
+            final long duration = System.currentTimeMillis() - callStart;
+            if (failed) {
+                circuitBreaker.onFailure(duration);
+            } else {
+                circuitBreaker.onSuccess(duration);
+            }
+        }
+    }
+
+    private boolean isServerFailure(final Response response) {
+        return response.code() >= 500;
+    }
+
+    private void waitToRetry(final Request request, final String failure, final int attempt, final long retryDelay) throws IntegrationException {
+        logMessage(LogLevel.DEBUG, String.format("Attempt %d to %s %s failed (%s), retrying in %d ms", attempt, request.method(), request.url(), failure, retryDelay));
+        try {
+            Thread.sleep(retryDelay);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IntegrationException("Interrupted while waiting to retry " + request.url(), e);
+        }
+    }
+
+    /**
+     * Cancelling the future cancels whichever call is current, however many retries and reconnects came before it.
+     */
+    private void handleExecuteClientCallAsync(final Request request, final int retryCount, final CompletableFuture<Response> future) {
+        final AtomicReference<Runnable> currentCall = new AtomicReference<>();
+        future.whenComplete((response, throwable) -> {
+            final Runnable cancelCall = currentCall.get();
+            if (future.isCancelled() && cancelCall != null) {
+                cancelCall.run();
+            }
+        });
+        handleExecuteClientCallAsync(request, retryCount, 1, System.currentTimeMillis(), future, currentCall);
+    }
+
+    private void handleExecuteClientCallAsync(final Request request, final int retryCount, final int attempt, final long firstAttemptStart, final CompletableFuture<Response> future,
+            final AtomicReference<Runnable> currentCall) {
+        if (future.isDone()) {
+            return;
+        }
+        if (client == null) {
+            // connecting logs in, which must not block the caller or a dispatcher thread
+            connectAsync().whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    future.completeExceptionally(throwable instanceof CompletionException ? throwable.getCause() : throwable);
+                } else {
+                    handleExecuteClientCallAsync(createNewRequest(request), retryCount, attempt, firstAttemptStart, future, currentCall);
+                }
+            });
+            return;
+        }
+        final String urlString = request.url().uri().toString();
+        if (alwaysTrustServerCertificate && request.url().isHttps() && logger != null) {
+            logger.debug("Automatically trusting the certificate for " + urlString);
+        }
+        logRequestHeaders(request);
+        final Request executedRequest = request;
+        final long rateLimitWaitNanos;
+        try {
+            rateLimitWaitNanos = reserveRateLimitPermit(executedRequest);
+        } catch (final RateLimitExceededException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        if (rateLimitWaitNanos > 0) {
+            RestClientRegistry.getInstance().getScheduler().schedule(() -> dispatchAsync(executedRequest, retryCount, attempt, firstAttemptStart, future, currentCall), rateLimitWaitNanos, TimeUnit.NANOSECONDS);
+        } else {
+            dispatchAsync(executedRequest, retryCount, attempt, firstAttemptStart, future, currentCall);
+        }
+    }
+
+    private void dispatchAsync(final Request executedRequest, final int retryCount, final int attempt, final long firstAttemptStart, final CompletableFuture<Response> future, final AtomicReference<Runnable> currentCall) {
+        if (future.isDone()) {
+            // cancelled by the caller while waiting for a permit
+            return;
+        }
+        final String urlString = executedRequest.url().uri().toString();
+        final CircuitBreaker circuitBreaker;
+        try {
+            circuitBreaker = acquireCircuitBreakerPermission(executedRequest);
+        } catch (final CircuitBreakerOpenException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        final int generation = connectionGeneration;
+        final long callStart = System.currentTimeMillis();
+        final Runnable cancelCall = enqueueCall(executedRequest, new Callback() {
+            @Override
+            public void onFailure(final Call call, final IOException e) {
+                if (call.isCanceled() || future.isDone()) {
+                    // the caller gave up on this call, its failure says nothing about the host and must not be retried
+                    if (circuitBreaker != null) {
+                        circuitBreaker.releasePermission();
+                    }
+                    return;
+                }
+                recordCallOutcome(circuitBreaker, true, callStart);
+                final long retryDelay = retryPolicy.getRetryDelay(executedRequest, null, e, attempt, System.currentTimeMillis() - firstAttemptStart);
+                if (retryDelay < 0) {
+                    future.completeExceptionally(new IntegrationException(e.getMessage(), e));
+                } else {
+                    scheduleRetry(e.getMessage(), retryDelay);
+                }
+            }
+
+            @Override
+            public void onResponse(final Call call, final Response response) {
+                recordCallOutcome(circuitBreaker, isServerFailure(response), callStart);
+                if (response.isSuccessful()) {
+                    negotiatedProtocol = response.protocol();
+                    logResponseHeaders(response);
+                    if (!future.complete(response)) {
+                        // nobody will read a response that arrives after the future was cancelled
+                        response.close();
+                    }
+                    return;
+                }
+                // request was un-successful make sure the response is closed to close the body
+                response.close();
+                if (response.code() == 401 && retryCount < 2) {
+                    reconnectAsync(generation).whenComplete((ignored, throwable) -> {
+                        if (throwable != null) {
+                            future.completeExceptionally(throwable instanceof CompletionException ? throwable.getCause() : throwable);
+                        } else {
+                            handleExecuteClientCallAsync(createNewRequest(executedRequest), retryCount + 1, attempt, firstAttemptStart, future, currentCall);
+                        }
+                    });
+                    return;
+                }
+                final long retryDelay = retryPolicy.getRetryDelay(executedRequest, response, null, attempt, System.currentTimeMillis() - firstAttemptStart);
+                if (retryDelay < 0) {
+                    future.completeExceptionally(new IntegrationRestException(response.code(), response.message(),
+                            String.format("There was a problem trying to %s this item: %s. Error: %s %s", executedRequest.method(), urlString, response.code(), response.message())));
+                } else {
+                    scheduleRetry(String.valueOf(response.code()), retryDelay);
+                }
+            }
+
+            private void scheduleRetry(final String failure, final long retryDelay) {
+                logMessage(LogLevel.DEBUG, String.format("Attempt %d to %s %s failed (%s), retrying in %d ms", attempt, executedRequest.method(), executedRequest.url(), failure, retryDelay));
+                RestClientRegistry.getInstance().getScheduler().schedule(() -> handleExecuteClientCallAsync(executedRequest, retryCount, attempt + 1, firstAttemptStart, future, currentCall), retryDelay, TimeUnit.MILLISECONDS);
+            }
+        });
+        currentCall.set(cancelCall);
+        if (future.isCancelled()) {
+            // cancelled before the call was published
+            cancelCall.run();
         }
     }
 
@@ -450,6 +907,13 @@ public abstract class RestConnection {
         this.client = client;
     }
 
+    /**
+     * @return the protocol of the most recent successful response, or null if no request has completed yet
+     */
+    public Protocol getNegotiatedProtocol() {
+        return negotiatedProtocol;
+    }
+
     public ProxyInfo getProxyInfo() {
         return proxyInfo;
     }
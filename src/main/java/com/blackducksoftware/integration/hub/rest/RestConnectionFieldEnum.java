@@ -29,7 +29,15 @@ public enum RestConnectionFieldEnum implements FieldEnum {
     URL("restConnectionUrl"),
     TIMEOUT("restConnectionTimeout"),
     LOGGER("restConnectionLogger"),
-    COMMON_HEADERS("restConnectionHeaders");
+    COMMON_HEADERS("restConnectionHeaders"),
+    MAX_IDLE_CONNECTIONS("restConnectionMaxIdleConnections"),
+    KEEP_ALIVE_DURATION("restConnectionKeepAliveDuration"),
+    MAX_REQUESTS("restConnectionMaxRequests"),
+    MAX_REQUESTS_PER_HOST("restConnectionMaxRequestsPerHost"),
+    PROTOCOL_MODE("restConnectionProtocolMode"),
+    CACHE("restConnectionCache"),
+    STALE_WHILE_REVALIDATE("restConnectionStaleWhileRevalidate"),
+    RETRY_POLICY("restConnectionRetryPolicy");
 
     private String key;
 
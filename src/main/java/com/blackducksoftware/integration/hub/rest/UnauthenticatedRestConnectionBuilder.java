@@ -34,6 +34,15 @@ public class UnauthenticatedRestConnectionBuilder extends AbstractRestConnection
         final UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator();
         validator.setBaseUrl(getBaseUrl());
         validator.setTimeout(getTimeout());
+        validator.setMaxIdleConnections(getMaxIdleConnections());
+        validator.setKeepAliveDuration(getKeepAliveDuration());
+        validator.setMaxRequests(getMaxRequests());
+        validator.setMaxRequestsPerHost(getMaxRequestsPerHost());
+        validator.setProtocolMode(getProtocolMode());
+        validator.setCacheDirectory(getCacheDirectory());
+        validator.setCacheMaxSize(getCacheMaxSize());
+        validator.setStaleWhileRevalidate(getStaleWhileRevalidate());
+        validator.setRetryPolicy(getRetryPolicy());
         validator.setProxyHost(getProxyHost());
         validator.setProxyPort(getProxyPort());
         validator.setProxyUsername(getProxyUsername());
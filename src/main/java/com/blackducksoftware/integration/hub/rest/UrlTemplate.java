@@ -0,0 +1,213 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import okhttp3.HttpUrl;
+
+/**
+ * A url such as /api/projects/{projectId}/versions?q={q}&limit=100, parsed and encoded once against a base url so that building a url for a request only encodes the variable values.
+ *
+ * Variables may stand for a whole path segment or a query parameter value. Every path variable must be given a value; a query parameter whose variable has no value is left out.
+ */
+public class UrlTemplate {
+    private static final HttpUrl ENCODING_URL = HttpUrl.parse("http://localhost/");
+
+    private final String template;
+    private final HttpUrl prefix;
+    private final Part[] pathParts;
+    private final QueryPart[] queryParts;
+    private final Set<String> variableNames;
+
+    public static UrlTemplate compile(final HttpUrl baseUrl, final String template) {
+        return new UrlTemplate(baseUrl, template);
+    }
+
+    private UrlTemplate(final HttpUrl baseUrl, final String template) {
+        this.template = template;
+        final Set<String> names = new LinkedHashSet<>();
+
+        final int queryStart = template.indexOf('?');
+        final String path = queryStart < 0 ? template : template.substring(0, queryStart);
+        final String query = queryStart < 0 ? null : template.substring(queryStart + 1);
+
+        // the literal segments before the first variable are appended to the base url once, here
+        final HttpUrl.Builder prefixBuilder = baseUrl.newBuilder();
+        final List<Part> parts = new ArrayList<>();
+        for (final String segment : StringUtils.split(path, '/')) {
+            final String variable = parseVariable(segment);
+            if (variable == null && parts.isEmpty()) {
+                prefixBuilder.addPathSegment(segment);
+            } else if (variable == null) {
+                parts.add(new Part(encodePathSegment(segment), null));
+            } else {
+                parts.add(new Part(null, variable));
+                names.add(variable);
+            }
+        }
+        prefix = prefixBuilder.build();
+        pathParts = parts.toArray(new Part[parts.size()]);
+
+        final List<QueryPart> queryPartList = new ArrayList<>();
+        if (query != null) {
+            for (final String parameter : StringUtils.split(query, '&')) {
+                final int equals = parameter.indexOf('=');
+                final String name = equals < 0 ? parameter : parameter.substring(0, equals);
+                if (parseVariable(name) != null) {
+                    throw new IllegalArgumentException(String.format("The query parameter names in the url template %s can not be variables", template));
+                }
+                final String value = equals < 0 ? null : parameter.substring(equals + 1);
+                final String variable = value == null ? null : parseVariable(value);
+                if (variable != null) {
+                    names.add(variable);
+                    queryPartList.add(new QueryPart(encodeQueryComponent(name), null, variable));
+                } else {
+                    queryPartList.add(new QueryPart(encodeQueryComponent(name), value == null ? null : encodeQueryComponent(value), null));
+                }
+            }
+        }
+        queryParts = queryPartList.toArray(new QueryPart[queryPartList.size()]);
+        variableNames = Collections.unmodifiableSet(names);
+    }
+
+    public HttpUrl expand(final Map<String, String> variables) {
+        return expand(variables, null);
+    }
+
+    /**
+     * Builds the url for the given variable values, with any additional query parameters appended after the template's own.
+     */
+    public HttpUrl expand(final Map<String, String> variables, final Map<String, String> queryParameters) {
+        if (pathParts.length == 0 && queryParts.length == 0 && (queryParameters == null || queryParameters.isEmpty())) {
+            return prefix;
+        }
+
+        final HttpUrl.Builder urlBuilder = prefix.newBuilder();
+        for (final Part part : pathParts) {
+            if (part.variable == null) {
+                urlBuilder.addEncodedPathSegment(part.encodedLiteral);
+            } else {
+                final String value = variables == null ? null : variables.get(part.variable);
+                if (value == null) {
+                    throw new IllegalArgumentException(String.format("No value was provided for the variable %s of the url template %s", part.variable, template));
+                }
+                urlBuilder.addPathSegment(value);
+            }
+        }
+        for (final QueryPart part : queryParts) {
+            if (part.variable == null) {
+                urlBuilder.addEncodedQueryParameter(part.encodedName, part.encodedLiteral);
+            } else {
+                final String value = variables == null ? null : variables.get(part.variable);
+                if (value != null) {
+                    urlBuilder.addEncodedQueryParameter(part.encodedName, encodeQueryComponent(value));
+                }
+            }
+        }
+        if (queryParameters != null) {
+            for (final Entry<String, String> queryParameter : queryParameters.entrySet()) {
+                urlBuilder.addEncodedQueryParameter(encodeQueryComponent(queryParameter.getKey()), encodeQueryComponent(queryParameter.getValue()));
+            }
+        }
+        return urlBuilder.build();
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public Set<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * Encodes a query parameter name or value the way URLEncoder does, without the allocations when there is nothing to encode. As of okhttp 3.8.0 the only escaped characters are space, ", ', <, >, #, &, and =, so we need to encode on our own (see HttpUrl.java, QUERY_COMPONENT_ENCODE_SET).
+     */
+    public static String encodeQueryComponent(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isUnencoded(value.charAt(i))) {
+                try {
+                    return URLEncoder.encode(value, "UTF-8");
+                } catch (final UnsupportedEncodingException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return value;
+    }
+
+    private static boolean isUnencoded(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '*' || c == '_';
+    }
+
+    private static String encodePathSegment(final String segment) {
+        return ENCODING_URL.newBuilder().addPathSegment(segment).build().encodedPathSegments().get(0);
+    }
+
+    private String parseVariable(final String text) {
+        if (text.startsWith("{") && text.endsWith("}") && text.length() > 2) {
+            return text.substring(1, text.length() - 1);
+        }
+        if (text.indexOf('{') >= 0 || text.indexOf('}') >= 0) {
+            throw new IllegalArgumentException(String.format("The url template %s can only use variables for a whole path segment or query parameter value", template));
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    private static class Part {
+        final String encodedLiteral;
+        final String variable;
+
+        private Part(final String encodedLiteral, final String variable) {
+            this.encodedLiteral = encodedLiteral;
+            this.variable = variable;
+        }
+    }
+
+    private static class QueryPart extends Part {
+        final String encodedName;
+
+        private QueryPart(final String encodedName, final String encodedLiteral, final String variable) {
+            super(encodedLiteral, variable);
+            this.encodedName = encodedName;
+        }
+    }
+
+}
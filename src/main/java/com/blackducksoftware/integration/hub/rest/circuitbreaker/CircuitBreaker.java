@@ -0,0 +1,190 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.circuitbreaker;
+
+import java.util.List;
+
+/**
+ * The circuit breaker for a single host. While CLOSED every call is permitted and the outcome of the most recent calls is recorded; when the failure rate or the slow call rate of that window reaches its threshold the circuit
+ * OPENs and calls are rejected until the wait duration has passed. It then becomes HALF_OPEN and permits a limited number of trial calls, whose outcome either closes the circuit again or re-opens it.
+ */
+public class CircuitBreaker {
+    private final String host;
+    private final CircuitBreakerConfiguration configuration;
+    private final List<CircuitBreakerListener> listeners;
+
+    private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCallCount;
+    private int slowCallCount;
+
+    public CircuitBreaker(final String host, final CircuitBreakerConfiguration configuration, final List<CircuitBreakerListener> listeners) {
+        this.host = host;
+        this.configuration = configuration;
+        this.listeners = listeners;
+        this.failedCalls = new boolean[configuration.slidingWindowSize];
+        this.slowCalls = new boolean[configuration.slidingWindowSize];
+    }
+
+    public boolean tryAcquirePermission() {
+        CircuitBreakerState previousState = null;
+        boolean permitted;
+        synchronized (this) {
+            if (state == CircuitBreakerState.OPEN && System.currentTimeMillis() - openedAt >= configuration.waitDurationInOpenStateMillis) {
+                previousState = transitionTo(CircuitBreakerState.HALF_OPEN);
+            }
+            if (state == CircuitBreakerState.CLOSED) {
+                permitted = true;
+            } else if (state == CircuitBreakerState.HALF_OPEN && halfOpenPermits > 0) {
+                halfOpenPermits--;
+                permitted = true;
+            } else {
+                permitted = false;
+            }
+        }
+        notifyListeners(previousState, CircuitBreakerState.HALF_OPEN);
+        return permitted;
+    }
+
+    /**
+     * Gives back a permission whose call was cancelled before it had an outcome, so a HALF_OPEN circuit can still complete its trial calls.
+     */
+    public synchronized void releasePermission() {
+        if (state == CircuitBreakerState.HALF_OPEN && halfOpenPermits < configuration.permittedNumberOfCallsInHalfOpenState) {
+            halfOpenPermits++;
+        }
+    }
+
+    public void onSuccess(final long durationMillis) {
+        record(false, durationMillis);
+    }
+
+    public void onFailure(final long durationMillis) {
+        record(true, durationMillis);
+    }
+
+    public synchronized CircuitBreakerState getState() {
+        return state;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public long getRemainingOpenMillis() {
+        synchronized (this) {
+            if (state != CircuitBreakerState.OPEN) {
+                return 0;
+            }
+            return Math.max(0, configuration.waitDurationInOpenStateMillis - (System.currentTimeMillis() - openedAt));
+        }
+    }
+
+    private void record(final boolean failed, final long durationMillis) {
+        CircuitBreakerState previousState = null;
+        CircuitBreakerState newState = null;
+        synchronized (this) {
+            if (state == CircuitBreakerState.OPEN) {
+                // a call that was already in flight when the circuit opened
+                return;
+            }
+            final boolean slow = durationMillis >= configuration.slowCallDurationMillis;
+            if (recordedCalls == failedCalls.length) {
+                if (failedCalls[windowIndex]) {
+                    failedCallCount--;
+                }
+                if (slowCalls[windowIndex]) {
+                    slowCallCount--;
+                }
+            } else {
+                recordedCalls++;
+            }
+            failedCalls[windowIndex] = failed;
+            slowCalls[windowIndex] = slow;
+            if (failed) {
+                failedCallCount++;
+            }
+            if (slow) {
+                slowCallCount++;
+            }
+            windowIndex = (windowIndex + 1) % failedCalls.length;
+
+            if (state == CircuitBreakerState.HALF_OPEN) {
+                if (recordedCalls >= configuration.permittedNumberOfCallsInHalfOpenState) {
+                    newState = isAboveThresholds() ? CircuitBreakerState.OPEN : CircuitBreakerState.CLOSED;
+                    previousState = transitionTo(newState);
+                }
+            } else if (recordedCalls >= configuration.minimumNumberOfCalls && isAboveThresholds()) {
+                newState = CircuitBreakerState.OPEN;
+                previousState = transitionTo(newState);
+            }
+        }
+        notifyListeners(previousState, newState);
+    }
+
+    private boolean isAboveThresholds() {
+        final float failureRate = failedCallCount * 100.0f / recordedCalls;
+        final float slowCallRate = slowCallCount * 100.0f / recordedCalls;
+        return failureRate >= configuration.failureRateThreshold || slowCallRate >= configuration.slowCallRateThreshold;
+    }
+
+    private CircuitBreakerState transitionTo(final CircuitBreakerState newState) {
+        final CircuitBreakerState previousState = state;
+        state = newState;
+        resetWindow();
+        if (newState == CircuitBreakerState.OPEN) {
+            openedAt = System.currentTimeMillis();
+        } else if (newState == CircuitBreakerState.HALF_OPEN) {
+            halfOpenPermits = configuration.permittedNumberOfCallsInHalfOpenState;
+        }
+        return previousState;
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        recordedCalls = 0;
+        failedCallCount = 0;
+        slowCallCount = 0;
+        for (int i = 0; i < failedCalls.length; i++) {
+            failedCalls[i] = false;
+            slowCalls[i] = false;
+        }
+    }
+
+    private void notifyListeners(final CircuitBreakerState previousState, final CircuitBreakerState newState) {
+        if (previousState == null || newState == null || previousState == newState) {
+            return;
+        }
+        for (final CircuitBreakerListener listener : listeners) {
+            listener.onStateChange(host, previousState, newState);
+        }
+    }
+
+}
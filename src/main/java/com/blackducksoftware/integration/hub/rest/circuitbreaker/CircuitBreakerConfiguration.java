@@ -0,0 +1,44 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.circuitbreaker;
+
+public class CircuitBreakerConfiguration {
+    // the number of most recent calls the failure and slow call rates are calculated over
+    public int slidingWindowSize = 100;
+
+    // the rates are not evaluated until this many calls have been recorded
+    public int minimumNumberOfCalls = 20;
+
+    // percentages of the calls in the window that open the circuit
+    public int failureRateThreshold = 50;
+    public int slowCallRateThreshold = 100;
+
+    public long slowCallDurationMillis = 60000;
+
+    // how long an open circuit fails fast before letting trial calls through
+    public long waitDurationInOpenStateMillis = 30000;
+
+    public int permittedNumberOfCallsInHalfOpenState = 5;
+
+}
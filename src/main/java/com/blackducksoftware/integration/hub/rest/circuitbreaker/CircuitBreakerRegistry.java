@@ -0,0 +1,83 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.circuitbreaker;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Keeps one CircuitBreaker per host. Share a registry between connections so that every connection to a degraded Hub node fails fast.
+ */
+public class CircuitBreakerRegistry {
+    private final CircuitBreakerConfiguration configuration;
+    private final List<CircuitBreakerListener> listeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry() {
+        this(new CircuitBreakerConfiguration());
+    }
+
+    public CircuitBreakerRegistry(final CircuitBreakerConfiguration configuration) {
+        if (configuration.slidingWindowSize < 1 || configuration.minimumNumberOfCalls < 1 || configuration.permittedNumberOfCallsInHalfOpenState < 1) {
+            throw new IllegalArgumentException("The sliding window size, minimum number of calls and permitted number of calls in the half open state must be greater than 0.");
+        }
+        if (configuration.minimumNumberOfCalls > configuration.slidingWindowSize) {
+            throw new IllegalArgumentException("The minimum number of calls can not be greater than the sliding window size, the circuit would never open.");
+        }
+        if (configuration.permittedNumberOfCallsInHalfOpenState > configuration.slidingWindowSize) {
+            throw new IllegalArgumentException("The permitted number of calls in the half open state can not be greater than the sliding window size, the circuit would never leave the half open state.");
+        }
+        this.configuration = configuration;
+    }
+
+    public CircuitBreaker getCircuitBreaker(final HttpUrl httpUrl) {
+        final String host = httpUrl.host() + ":" + httpUrl.port();
+        CircuitBreaker circuitBreaker = circuitBreakers.get(host);
+        if (circuitBreaker == null) {
+            final CircuitBreaker newCircuitBreaker = new CircuitBreaker(host, configuration, listeners);
+            circuitBreaker = circuitBreakers.putIfAbsent(host, newCircuitBreaker);
+            if (circuitBreaker == null) {
+                circuitBreaker = newCircuitBreaker;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    public void addListener(final CircuitBreakerListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final CircuitBreakerListener listener) {
+        listeners.remove(listener);
+    }
+
+    public CircuitBreakerConfiguration getConfiguration() {
+        return configuration;
+    }
+
+}
@@ -26,6 +26,7 @@ package com.blackducksoftware.integration.hub.rest.exception;
 import com.blackducksoftware.integration.exception.IntegrationException;
 
 public class IntegrationRestException extends IntegrationException {
+    private static final long serialVersionUID = -1579529812398204666L;
     private final int httpStatusCode;
     private final String httpStatusMessage;
 
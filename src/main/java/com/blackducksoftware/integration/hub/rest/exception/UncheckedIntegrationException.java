@@ -0,0 +1,43 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.exception;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+
+/**
+ * Carries an IntegrationException out of an Iterator or a Stream, which cannot throw checked exceptions.
+ */
+public class UncheckedIntegrationException extends RuntimeException {
+    private static final long serialVersionUID = -2465084172095546763L;
+
+    public UncheckedIntegrationException(final IntegrationException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public IntegrationException getCause() {
+        return (IntegrationException) super.getCause();
+    }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.hedge;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Sends a request and, if it has not answered within the policy's hedge delay, one duplicate. The first response wins and the other call is cancelled; a failure only wins once no call is left that could still answer.
+ */
+public class HedgedCall {
+    private final OkHttpClient client;
+    private final Request request;
+    private final Supplier<Request> hedgeRequestSupplier;
+    private final HedgingPolicy hedgingPolicy;
+    private final BooleanSupplier hedgePermit;
+    private final ScheduledExecutorService scheduler;
+
+    private final List<Call> calls = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final AtomicInteger callsInFlight = new AtomicInteger();
+    private final AtomicBoolean hedgePending = new AtomicBoolean(true);
+    private volatile ScheduledFuture<?> hedgeTask;
+    private volatile long firstStart;
+    private volatile boolean hedged;
+    private volatile IOException lastFailure;
+    private Callback callback;
+
+    /**
+     * @param hedgeRequestSupplier
+     *            creates the duplicate request when it is sent, so it carries the connection's current headers
+     * @param hedgePermit
+     *            is asked right before the duplicate is sent, so a rate limiter or an unhealthy host can veto it
+     */
+    public HedgedCall(final OkHttpClient client, final Request request, final Supplier<Request> hedgeRequestSupplier, final HedgingPolicy hedgingPolicy, final BooleanSupplier hedgePermit,
+            final ScheduledExecutorService scheduler) {
+        this.client = client;
+        this.request = request;
+        this.hedgeRequestSupplier = hedgeRequestSupplier;
+        this.hedgingPolicy = hedgingPolicy;
+        this.hedgePermit = hedgePermit;
+        this.scheduler = scheduler;
+    }
+
+    public Response execute() throws IOException {
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        enqueue(new Callback() {
+            @Override
+            public void onFailure(final Call call, final IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(final Call call, final Response response) {
+                future.complete(response);
+            }
+        });
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.url());
+        } catch (final ExecutionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * The callback is notified exactly once, with the winning call.
+     */
+    public void enqueue(final Callback callback) {
+        this.callback = callback;
+        hedgingPolicy.onRequest();
+        firstStart = System.currentTimeMillis();
+        start(request);
+        hedgeTask = scheduler.schedule(this::hedge, hedgingPolicy.getHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void cancel() {
+        completed.set(true);
+        cancelOutstanding(null);
+    }
+
+    /**
+     * @return true if a duplicate request was sent
+     */
+    public boolean isHedged() {
+        return hedged;
+    }
+
+    private void hedge() {
+        try {
+            // a duplicate that would only wait in the dispatcher queue, behind maxRequests or maxRequestsPerHost, cannot answer sooner
+            if (!completed.get() && client.dispatcher().queuedCallsCount() == 0 && hedgingPolicy.tryAcquireHedge() && hedgePermit.getAsBoolean()) {
+                hedged = true;
+                start(hedgeRequestSupplier.get());
+            }
+        } finally {
+            hedgePending.set(false);
+        }
+        // the original call may have failed while the duplicate was being considered
+        failIfFinished();
+    }
+
+    private void start(final Request requestToSend) {
+        final Call call = client.newCall(requestToSend);
+        calls.add(call);
+        callsInFlight.incrementAndGet();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(final Call call, final IOException e) {
+                lastFailure = e;
+                callsInFlight.decrementAndGet();
+                failIfFinished();
+            }
+
+            @Override
+            public void onResponse(final Call call, final Response response) throws IOException {
+                // claim the result before leaving the calls in flight, so a failure arriving at the same moment never sees an empty, unclaimed call
+                if (!completed.compareAndSet(false, true)) {
+                    callsInFlight.decrementAndGet();
+                    response.close();
+                    return;
+                }
+                callsInFlight.decrementAndGet();
+                // measured from the original request even when the duplicate wins: the original has taken at least this long, and the hedge delay has to follow the original's latency
+                hedgingPolicy.recordLatency(System.currentTimeMillis() - firstStart);
+                cancelOutstanding(call);
+                callback.onResponse(call, response);
+            }
+        });
+        if (completed.get()) {
+            call.cancel();
+        }
+    }
+
+    private void failIfFinished() {
+        if (callsInFlight.get() > 0 || completed.get()) {
+            return;
+        }
+        if (hedgePending.get() && !cancelHedge()) {
+            // the duplicate is being sent right now, its outcome decides
+            return;
+        }
+        if (completed.compareAndSet(false, true)) {
+            cancelOutstanding(null);
+            callback.onFailure(calls.get(0), lastFailure);
+        }
+    }
+
+    /**
+     * @return true if the duplicate request will not be sent
+     */
+    private boolean cancelHedge() {
+        final ScheduledFuture<?> task = hedgeTask;
+        return task == null || task.cancel(false);
+    }
+
+    private void cancelOutstanding(final Call winner) {
+        cancelHedge();
+        for (final Call call : calls) {
+            if (call != winner) {
+                call.cancel();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Request;
+
+/**
+ * Decides when a GET (or HEAD) that has not answered yet gets a duplicate request. The hedge delay is the configured percentile of recently observed latencies, kept between the minimum and maximum delay; until enough latencies
+ * have been observed the maximum delay is used. Every request earns a fraction of a hedge (the maximum hedge ratio) and every hedge spends a whole one, so the extra load never exceeds that ratio.
+ */
+public class HedgingPolicy {
+    public static final int DEFAULT_SAMPLE_SIZE = 100;
+    public static final int MINIMUM_SAMPLES = 20;
+
+    private static final double MAX_HEDGE_CREDITS = 10;
+
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final double maxHedgeRatio;
+
+    private final long[] latencies;
+    private final long[] sortedLatencies;
+    private int latencyCount;
+    private int nextLatency;
+    private volatile long hedgeDelayMillis;
+
+    private double hedgeCredits = 1;
+    private long hedgeCount;
+
+    public HedgingPolicy(final double percentile, final long minDelay, final long maxDelay, final TimeUnit timeUnit, final double maxHedgeRatio) {
+        this(percentile, minDelay, maxDelay, timeUnit, maxHedgeRatio, DEFAULT_SAMPLE_SIZE);
+    }
+
+    public HedgingPolicy(final double percentile, final long minDelay, final long maxDelay, final TimeUnit timeUnit, final double maxHedgeRatio, final int sampleSize) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be greater than 0 and at most 100.");
+        }
+        if (minDelay < 0 || maxDelay < minDelay) {
+            throw new IllegalArgumentException("The minimum delay cannot be negative or greater than the maximum delay.");
+        }
+        if (maxHedgeRatio < 0 || maxHedgeRatio > 1) {
+            throw new IllegalArgumentException("The maximum hedge ratio must be between 0 and 1.");
+        }
+        if (sampleSize < MINIMUM_SAMPLES) {
+            throw new IllegalArgumentException("The sample size must be at least " + MINIMUM_SAMPLES + ".");
+        }
+        this.percentile = percentile;
+        this.minDelayMillis = timeUnit.toMillis(minDelay);
+        this.maxDelayMillis = timeUnit.toMillis(maxDelay);
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.latencies = new long[sampleSize];
+        this.sortedLatencies = new long[sampleSize];
+        this.hedgeDelayMillis = maxDelayMillis;
+    }
+
+    public boolean isHedgeable(final Request request) {
+        return "GET".equals(request.method()) || "HEAD".equals(request.method());
+    }
+
+    /**
+     * @return how long to wait for a response before sending the duplicate request
+     */
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    /**
+     * The samples are also kept sorted, the evicted sample is removed and the new one inserted in place, so the hedge delay is ready before the next request asks for it.
+     */
+    public synchronized void recordLatency(final long latencyMillis) {
+        if (latencyCount == latencies.length) {
+            final int evicted = Arrays.binarySearch(sortedLatencies, 0, latencyCount, latencies[nextLatency]);
+            System.arraycopy(sortedLatencies, evicted + 1, sortedLatencies, evicted, latencyCount - evicted - 1);
+            latencyCount--;
+        }
+        latencies[nextLatency] = latencyMillis;
+        nextLatency = (nextLatency + 1) % latencies.length;
+        int insertion = Arrays.binarySearch(sortedLatencies, 0, latencyCount, latencyMillis);
+        if (insertion < 0) {
+            insertion = -insertion - 1;
+        }
+        System.arraycopy(sortedLatencies, insertion, sortedLatencies, insertion + 1, latencyCount - insertion);
+        sortedLatencies[insertion] = latencyMillis;
+        latencyCount++;
+
+        if (latencyCount >= MINIMUM_SAMPLES) {
+            final int index = (int) Math.ceil(percentile / 100 * latencyCount) - 1;
+            hedgeDelayMillis = Math.min(maxDelayMillis, Math.max(minDelayMillis, sortedLatencies[Math.max(0, index)]));
+        }
+    }
+
+    /**
+     * Called once for every hedgeable request, this is what earns the hedges.
+     */
+    public synchronized void onRequest() {
+        hedgeCredits = Math.min(MAX_HEDGE_CREDITS, hedgeCredits + maxHedgeRatio);
+    }
+
+    /**
+     * @return true if the hedge budget allows another duplicate request, in which case it is spent
+     */
+    public synchronized boolean tryAcquireHedge() {
+        if (hedgeCredits < 1) {
+            return false;
+        }
+        hedgeCredits -= 1;
+        hedgeCount++;
+        return true;
+    }
+
+    public synchronized long getHedgeCount() {
+        return hedgeCount;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public long getMinDelayMillis() {
+        return minDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public double getMaxHedgeRatio() {
+        return maxHedgeRatio;
+    }
+
+}
@@ -0,0 +1,209 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.metrics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import com.blackducksoftware.integration.log.IntLogger;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Times the network phases of a single call and hands them to a RestMetricsListener when the call ends. OkHttp creates one per call through the Factory.
+ */
+public class CallTimingEventListener extends EventListener {
+    private final RestMetricsListener metricsListener;
+    private final IntLogger logger;
+    private final CallTimings callTimings = new CallTimings();
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestStart;
+    private long requestEnd;
+    private long responseBodyStart;
+    private boolean connectStarted;
+
+    public CallTimingEventListener(final RestMetricsListener metricsListener, final IntLogger logger) {
+        this.metricsListener = metricsListener;
+        this.logger = logger;
+    }
+
+    @Override
+    public void callStart(final Call call) {
+        callStart = System.nanoTime();
+        callTimings.method = call.request().method();
+        callTimings.url = call.request().url();
+    }
+
+    @Override
+    public void dnsStart(final Call call, final String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(final Call call, final String domainName, final List<InetAddress> inetAddressList) {
+        callTimings.dnsNanos = add(callTimings.dnsNanos, System.nanoTime() - dnsStart);
+    }
+
+    @Override
+    public void connectStart(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy) {
+        connectStarted = true;
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(final Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(final Call call, final Handshake handshake) {
+        callTimings.secureConnectNanos = add(callTimings.secureConnectNanos, System.nanoTime() - secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy, final Protocol protocol) {
+        callTimings.connectNanos = add(callTimings.connectNanos, System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void connectFailed(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy, final Protocol protocol, final IOException ioe) {
+        callTimings.connectNanos = add(callTimings.connectNanos, System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void connectionAcquired(final Call call, final Connection connection) {
+        if (callTimings.connectionAcquireNanos == CallTimings.NOT_MEASURED) {
+            callTimings.connectionAcquireNanos = System.nanoTime() - callStart;
+            callTimings.connectionReused = !connectStarted;
+        }
+    }
+
+    @Override
+    public void requestHeadersStart(final Call call) {
+        requestStart = System.nanoTime();
+        requestEnd = requestStart;
+    }
+
+    @Override
+    public void requestHeadersEnd(final Call call, final Request request) {
+        requestEnd = System.nanoTime();
+        callTimings.requestWriteNanos = add(callTimings.requestWriteNanos, requestEnd - requestStart);
+    }
+
+    @Override
+    public void requestBodyStart(final Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(final Call call, final long byteCount) {
+        requestEnd = System.nanoTime();
+        callTimings.requestWriteNanos = add(callTimings.requestWriteNanos, requestEnd - requestStart);
+        callTimings.requestBodyBytes += byteCount;
+    }
+
+    @Override
+    public void responseHeadersEnd(final Call call, final Response response) {
+        callTimings.timeToFirstByteNanos = add(callTimings.timeToFirstByteNanos, System.nanoTime() - requestEnd);
+        callTimings.statusCode = response.code();
+        callTimings.protocol = response.protocol();
+    }
+
+    @Override
+    public void responseBodyStart(final Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(final Call call, final long byteCount) {
+        callTimings.responseBodyNanos = add(callTimings.responseBodyNanos, System.nanoTime() - responseBodyStart);
+        callTimings.responseBodyBytes += byteCount;
+    }
+
+    @Override
+    public void callEnd(final Call call) {
+        deliver();
+    }
+
+    @Override
+    public void callFailed(final Call call, final IOException ioe) {
+        callTimings.failure = ioe;
+        deliver();
+    }
+
+    private void deliver() {
+        if (callTimings.totalNanos != CallTimings.NOT_MEASURED) {
+            return;
+        }
+        callTimings.totalNanos = System.nanoTime() - callStart;
+        try {
+            metricsListener.onCallEnd(callTimings);
+        } catch (final RuntimeException e) {
+            // a broken metrics listener must not break the call
+            if (logger != null) {
+                logger.debug("The metrics listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private long add(final long total, final long duration) {
+        if (total == CallTimings.NOT_MEASURED) {
+            return duration;
+        }
+        return total + duration;
+    }
+
+    public static class Factory implements EventListener.Factory {
+        private final RestMetricsListener metricsListener;
+        private final IntLogger logger;
+
+        public Factory(final RestMetricsListener metricsListener, final IntLogger logger) {
+            this.metricsListener = metricsListener;
+            this.logger = logger;
+        }
+
+        @Override
+        public EventListener create(final Call call) {
+            return new CallTimingEventListener(metricsListener, logger);
+        }
+
+        public RestMetricsListener getMetricsListener() {
+            return metricsListener;
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+
+/**
+ * The network phases of one HTTP call, in nanoseconds. A phase that did not happen during the call is -1; for example a call on a reused connection has no dns, connect or secure connect time. When OkHttp follows a redirect
+ * or answers an authentication challenge within the call, the durations of the repeated phases are added up.
+ */
+public class CallTimings {
+    public static final long NOT_MEASURED = -1;
+
+    String method;
+    HttpUrl url;
+    int statusCode = -1;
+    Protocol protocol;
+    IOException failure;
+    boolean connectionReused;
+    long dnsNanos = NOT_MEASURED;
+    long connectNanos = NOT_MEASURED;
+    long secureConnectNanos = NOT_MEASURED;
+    long connectionAcquireNanos = NOT_MEASURED;
+    long requestWriteNanos = NOT_MEASURED;
+    long timeToFirstByteNanos = NOT_MEASURED;
+    long responseBodyNanos = NOT_MEASURED;
+    long totalNanos = NOT_MEASURED;
+    long requestBodyBytes;
+    long responseBodyBytes;
+
+    public String getMethod() {
+        return method;
+    }
+
+    public HttpUrl getUrl() {
+        return url;
+    }
+
+    /**
+     * @return the status code of the final response, or -1 if the call failed before a response arrived
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * @return the reason the call failed, or null if it completed
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * @return true if the call ran on a pooled connection instead of opening a new one
+     */
+    public boolean isConnectionReused() {
+        return connectionReused;
+    }
+
+    public long getDnsNanos() {
+        return dnsNanos;
+    }
+
+    /**
+     * @return the time to open the connection, including the secure connect (TLS handshake) and any proxy tunnel
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * @return the time of the TLS handshake
+     */
+    public long getSecureConnectNanos() {
+        return secureConnectNanos;
+    }
+
+    /**
+     * @return the time from the start of the call until it held a connection, so the dns and connect time for a new connection, or just the wait for the pool for a reused one
+     */
+    public long getConnectionAcquireNanos() {
+        return connectionAcquireNanos;
+    }
+
+    /**
+     * @return the time to write the request headers and body
+     */
+    public long getRequestWriteNanos() {
+        return requestWriteNanos;
+    }
+
+    /**
+     * @return the time from the end of the request until the response headers were read, mostly the time the server took
+     */
+    public long getTimeToFirstByteNanos() {
+        return timeToFirstByteNanos;
+    }
+
+    /**
+     * @return the time to read the response body, which includes the caller's own processing when it decodes while reading
+     */
+    public long getResponseBodyNanos() {
+        return responseBodyNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getRequestBodyBytes() {
+        return requestBodyBytes;
+    }
+
+    public long getResponseBodyBytes() {
+        return responseBodyBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CallTimings [%s %s status=%d reused=%s dns=%s connect=%s tls=%s acquire=%s write=%s ttfb=%s body=%s total=%s]", method, url, statusCode, connectionReused, millis(dnsNanos), millis(connectNanos),
+                millis(secureConnectNanos), millis(connectionAcquireNanos), millis(requestWriteNanos), millis(timeToFirstByteNanos), millis(responseBodyNanos), millis(totalNanos));
+    }
+
+    private String millis(final long nanos) {
+        if (nanos == NOT_MEASURED) {
+            return "-";
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+    }
+
+}
@@ -0,0 +1,117 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a LatencyHistogram of the total call time for every method, endpoint template and status code, so percentiles can be tracked for each Hub operation. Set it as the metrics listener of the connections to measure;
+ * it can be queried and reset at any time. Failed calls are kept under the status code -1.
+ */
+public class EndpointLatencyMetrics implements RestMetricsListener {
+    private final ConcurrentHashMap<EndpointKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void onCallEnd(final CallTimings callTimings) {
+        final EndpointKey key = new EndpointKey(callTimings.getMethod(), createTemplate(callTimings), callTimings.getStatusCode());
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, newKey -> new LatencyHistogram());
+        }
+        histogram.record(callTimings.getTotalNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Override to group urls differently.
+     */
+    protected String createTemplate(final CallTimings callTimings) {
+        return EndpointTemplate.fromUrl(callTimings.getUrl());
+    }
+
+    /**
+     * @return the histogram, or null if no such call has been recorded since the last reset
+     */
+    public LatencyHistogram getHistogram(final String method, final String template, final int statusCode) {
+        return histograms.get(new EndpointKey(method, template, statusCode));
+    }
+
+    public Map<EndpointKey, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(new HashMap<>(histograms));
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    public static class EndpointKey {
+        private final String method;
+        private final String template;
+        private final int statusCode;
+
+        public EndpointKey(final String method, final String template, final int statusCode) {
+            this.method = method;
+            this.template = template;
+            this.statusCode = statusCode;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public int hashCode() {
+            return (method.hashCode() * 31 + template.hashCode()) * 31 + statusCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof EndpointKey)) {
+                return false;
+            }
+            final EndpointKey other = (EndpointKey) obj;
+            return statusCode == other.statusCode && method.equals(other.method) && template.equals(other.template);
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + template + " " + statusCode;
+        }
+    }
+
+}
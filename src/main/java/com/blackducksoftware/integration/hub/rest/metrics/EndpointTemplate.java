@@ -0,0 +1,67 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Reduces a url to the API operation it calls, so metrics are kept per operation instead of per url. Path segments that are ids (uuids, numbers and long hex strings such as hashes) become {id}, the host is dropped, and
+ * only the sorted names of the query parameters are kept, so https://hub/api/projects/0d5b...6e/versions?offset=20&limit=10 becomes /api/projects/{id}/versions?limit&offset.
+ */
+public class EndpointTemplate {
+    public static final String ID_PLACEHOLDER = "{id}";
+
+    private static final Pattern UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    private static final Pattern LONG_HEX = Pattern.compile("[0-9a-fA-F]{16,}");
+
+    public static String fromUrl(final HttpUrl url) {
+        final StringBuilder template = new StringBuilder();
+        for (final String segment : url.pathSegments()) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            template.append('/').append(isId(segment) ? ID_PLACEHOLDER : segment);
+        }
+        if (template.length() == 0) {
+            template.append('/');
+        }
+        if (url.querySize() > 0) {
+            final List<String> queryNames = new ArrayList<>(url.queryParameterNames());
+            Collections.sort(queryNames);
+            template.append('?').append(String.join("&", queryNames));
+        }
+        return template.toString();
+    }
+
+    public static boolean isId(final String segment) {
+        return NUMBER.matcher(segment).matches() || UUID.matcher(segment).matches() || LONG_HEX.matcher(segment).matches();
+    }
+
+}
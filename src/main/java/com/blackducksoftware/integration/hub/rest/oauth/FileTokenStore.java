@@ -0,0 +1,221 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.oauth;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+import com.blackducksoftware.integration.encryption.PasswordDecrypter;
+import com.blackducksoftware.integration.encryption.PasswordEncrypter;
+import com.blackducksoftware.integration.exception.EncryptionException;
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.oauth.Token;
+import com.blackducksoftware.integration.hub.rest.exception.TokenStoreException;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Stores each token in its own file in a directory, encrypted with the PasswordEncrypter, and named after a hash of its key. A lock file next to each token file is locked with a shared lock for reading and an exclusive lock for
+ * writing and for getOrRequest, so processes sharing the directory request each token only once. A file that cannot be decrypted or read is treated as empty.
+ */
+public class FileTokenStore implements TokenStore {
+    private static final String TOKEN_SUFFIX = ".token";
+    private static final String LOCK_SUFFIX = ".lock";
+
+    // a process can only hold one lock on a file, so the threads of this process take turns before locking it
+    private static final ConcurrentMap<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final Gson gson = new Gson();
+
+    public FileTokenStore(final File directory) {
+        this.directory = directory.toPath().toAbsolutePath();
+    }
+
+    public File getDirectory() {
+        return directory.toFile();
+    }
+
+    @Override
+    public IssuedToken load(final String key) throws TokenStoreException {
+        try {
+            return withLock(key, true, () -> read(key));
+        } catch (final TokenStoreException e) {
+            throw e;
+        } catch (final IntegrationException e) {
+            throw new TokenStoreException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void store(final String key, final IssuedToken issuedToken) throws TokenStoreException {
+        try {
+            withLock(key, false, () -> {
+                write(key, issuedToken);
+                return null;
+            });
+        } catch (final TokenStoreException e) {
+            throw e;
+        } catch (final IntegrationException e) {
+            throw new TokenStoreException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void remove(final String key) throws TokenStoreException {
+        try {
+            withLock(key, false, () -> {
+                Files.deleteIfExists(getPath(key, TOKEN_SUFFIX));
+                return null;
+            });
+        } catch (final TokenStoreException e) {
+            throw e;
+        } catch (final IntegrationException e) {
+            throw new TokenStoreException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Holds the exclusive lock while the token is requested, so another process asking for the same token waits for this one and then finds it stored.
+     */
+    @Override
+    public IssuedToken getOrRequest(final String key, final Predicate<IssuedToken> usable, final TokenRequest tokenRequest) throws IntegrationException {
+        return withLock(key, false, () -> {
+            final IssuedToken stored = read(key);
+            if (stored != null && usable.test(stored)) {
+                return stored;
+            }
+            final IssuedToken issuedToken = tokenRequest.request(stored);
+            write(key, issuedToken);
+            return issuedToken;
+        });
+    }
+
+    private <T> T withLock(final String key, final boolean shared, final LockedAction<T> action) throws IntegrationException {
+        final Path lockPath = getPath(key, LOCK_SUFFIX);
+        final Object processLock = PROCESS_LOCKS.computeIfAbsent(lockPath, path -> new Object());
+        synchronized (processLock) {
+            try {
+                Files.createDirectories(directory);
+                try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    // closing the channel releases the lock
+                    channel.lock(0, Long.MAX_VALUE, shared);
+                    return action.run();
+                }
+            } catch (final IOException e) {
+                throw new TokenStoreException(String.format("Could not use the token store file %s", lockPath), e);
+            }
+        }
+    }
+
+    private IssuedToken read(final String key) {
+        try {
+            final String encrypted = new String(Files.readAllBytes(getPath(key, TOKEN_SUFFIX)), StandardCharsets.UTF_8);
+            final StoredToken storedToken = gson.fromJson(PasswordDecrypter.decrypt(encrypted), StoredToken.class);
+            if (storedToken == null || storedToken.token == null) {
+                return null;
+            }
+            return new IssuedToken(storedToken.token, storedToken.issuedAt);
+        } catch (final IOException | EncryptionException | JsonParseException | IllegalArgumentException e) {
+            // missing, partly written or from an incompatible version; it will be replaced
+            return null;
+        }
+    }
+
+    private void write(final String key, final IssuedToken issuedToken) throws IOException, TokenStoreException {
+        final StoredToken storedToken = new StoredToken();
+        storedToken.issuedAt = issuedToken.getIssuedAt();
+        storedToken.token = issuedToken.getToken();
+        final String encrypted;
+        try {
+            encrypted = PasswordEncrypter.encrypt(gson.toJson(storedToken));
+        } catch (final EncryptionException e) {
+            throw new TokenStoreException("Could not encrypt the token", e);
+        }
+
+        // written next to the token file and moved over it, so readers never see part of a token
+        final Path tokenPath = getPath(key, TOKEN_SUFFIX);
+        final Path tempPath = Files.createTempFile(directory, "token", ".tmp", ownerOnlyPermissions());
+        try {
+            Files.write(tempPath, encrypted.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tempPath, tokenPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, tokenPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            // only still there if the move failed
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private FileAttribute<?>[] ownerOnlyPermissions() {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return new FileAttribute<?>[] { PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")) };
+        }
+        return new FileAttribute<?>[0];
+    }
+
+    /**
+     * The keys contain refresh tokens, so only their hash appears in the file name.
+     */
+    private Path getPath(final String key, final String suffix) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder(digest.length * 2 + suffix.length());
+            for (final byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return directory.resolve(name.append(suffix).toString());
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface LockedAction<T> {
+        T run() throws IOException, IntegrationException;
+    }
+
+    private static class StoredToken {
+        private long issuedAt;
+        private Token token;
+    }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.oauth;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.blackducksoftware.integration.hub.api.oauth.Token;
+
+/**
+ * A Token together with when it was issued, so its expiry can be worked out from the expires_in lifetime. A token without a usable expires_in never expires.
+ */
+public class IssuedToken {
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final Token token;
+    private final long issuedAt;
+    private final long expiresAt;
+
+    public IssuedToken(final Token token, final long issuedAt) {
+        this.token = token;
+        this.issuedAt = issuedAt;
+        final long lifetimeSeconds = parseLifetimeSeconds(token.expiresIn);
+        this.expiresAt = lifetimeSeconds < 0 ? NO_EXPIRY : issuedAt + TimeUnit.SECONDS.toMillis(lifetimeSeconds);
+    }
+
+    public Token getToken() {
+        return token;
+    }
+
+    /**
+     * The time the token was issued, in milliseconds since the epoch.
+     */
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * The time the token expires, in milliseconds since the epoch, or NO_EXPIRY.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean hasExpiry() {
+        return expiresAt != NO_EXPIRY;
+    }
+
+    /**
+     * Whether the token has expired by now, or will within the given margin.
+     */
+    public boolean isExpired(final long now, final long marginMillis) {
+        return hasExpiry() && now >= expiresAt - marginMillis;
+    }
+
+    /**
+     * The time at which the given fraction of the token's lifetime has passed, or NO_EXPIRY.
+     */
+    public long getRefreshAt(final double lifetimeFraction) {
+        if (!hasExpiry()) {
+            return NO_EXPIRY;
+        }
+        return issuedAt + (long) ((expiresAt - issuedAt) * lifetimeFraction);
+    }
+
+    private static long parseLifetimeSeconds(final String expiresIn) {
+        if (StringUtils.isBlank(expiresIn)) {
+            return -1;
+        }
+        try {
+            // the Hub writes expires_in as a number, which may come through as 86399 or 86399.0
+            return (long) Double.parseDouble(expiresIn.trim());
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+}
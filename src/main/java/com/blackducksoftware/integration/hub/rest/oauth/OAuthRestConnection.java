@@ -26,28 +26,68 @@ package com.blackducksoftware.integration.hub.rest.oauth;
 import java.net.URL;
 
 import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.oauth.OAuthConfiguration;
 import com.blackducksoftware.integration.hub.proxy.ProxyInfo;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.log.IntLogger;
 
+import okhttp3.Interceptor;
+
 public class OAuthRestConnection extends RestConnection {
     private final TokenManager tokenManager;
     private final AccessType accessType;
+    private final Interceptor tokenInterceptor;
 
     public OAuthRestConnection(final IntLogger logger, final URL hubBaseUrl, final int timeout, final TokenManager tokenManager, final AccessType accessType, final ProxyInfo proxyInfo) {
         super(logger, hubBaseUrl, timeout, proxyInfo);
         this.tokenManager = tokenManager;
         this.accessType = accessType;
+        this.tokenInterceptor = createTokenInterceptor();
     }
 
     @Override
     public void addBuilderAuthentication() throws IntegrationException {
         builder.authenticator(new OkOauthAuthenticator(tokenManager, accessType, this));
+        if (!builder.interceptors().contains(tokenInterceptor)) {
+            builder.addInterceptor(tokenInterceptor);
+        }
+    }
+
+    /**
+     * A user token is scoped to the refresh token it was granted with, a client token to the client id.
+     */
+    @Override
+    protected String getCacheScope() {
+        final OAuthConfiguration configuration = tokenManager.getConfiguration();
+        if (configuration == null) {
+            return accessType.toString();
+        }
+        if (AccessType.USER.equals(accessType)) {
+            return String.format("%s %s %s", accessType, configuration.clientId, configuration.refreshToken);
+        }
+        return String.format("%s %s", accessType, configuration.clientId);
     }
 
+    /**
+     * Only requests a token when there is no valid one already, so reconnecting does not cost a token request.
+     */
     @Override
     public void clientAuthenticate() throws IntegrationException {
-        tokenManager.refreshToken(accessType);
+        tokenManager.getToken(accessType);
+    }
+
+    /**
+     * Sends each request with the latest valid token, so a token refreshed in the background is picked up without waiting for a 401. This never blocks on the token endpoint: without a valid token the request goes as it is and the authenticator takes over.
+     */
+    private Interceptor createTokenInterceptor() {
+        return chain -> {
+            final IssuedToken issuedToken = tokenManager.getIssuedToken(accessType);
+            if (issuedToken == null || !tokenManager.isValid(issuedToken)) {
+                return chain.proceed(chain.request());
+            }
+            final String credential = tokenManager.createTokenCredential(issuedToken.getToken().accessToken);
+            return chain.proceed(chain.request().newBuilder().header(TokenManager.WWW_AUTH_RESP, credential).build());
+        };
     }
 
 }
@@ -63,6 +63,15 @@ public class OAuthRestConnectionBuilder extends AbstractRestConnectionBuilder<OA
         final OauthRestConnectionValidator validator = new OauthRestConnectionValidator();
         validator.setBaseUrl(getBaseUrl());
         validator.setTimeout(getTimeout());
+        validator.setMaxIdleConnections(getMaxIdleConnections());
+        validator.setKeepAliveDuration(getKeepAliveDuration());
+        validator.setMaxRequests(getMaxRequests());
+        validator.setMaxRequestsPerHost(getMaxRequestsPerHost());
+        validator.setProtocolMode(getProtocolMode());
+        validator.setCacheDirectory(getCacheDirectory());
+        validator.setCacheMaxSize(getCacheMaxSize());
+        validator.setStaleWhileRevalidate(getStaleWhileRevalidate());
+        validator.setRetryPolicy(getRetryPolicy());
         validator.setProxyHost(getProxyHost());
         validator.setProxyPort(getProxyPort());
         validator.setProxyUsername(getProxyUsername());
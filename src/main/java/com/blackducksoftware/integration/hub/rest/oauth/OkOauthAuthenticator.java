@@ -52,6 +52,10 @@ public class OkOauthAuthenticator implements Authenticator {
             String credential;
             try {
                 credential = tokenManager.createTokenCredential(tokenManager.getToken(accessType).accessToken);
+                if (credential.equals(response.request().header(TokenManager.WWW_AUTH_RESP))) {
+                    // the current token was rejected, so it is no good even if it has not expired yet
+                    credential = tokenManager.createTokenCredential(tokenManager.refreshToken(accessType).accessToken);
+                }
             } catch (final IntegrationException e) {
                 throw new IOException("Cannot refresh token", e);
             }
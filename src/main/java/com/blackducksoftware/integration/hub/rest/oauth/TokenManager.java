@@ -24,6 +24,13 @@
 package com.blackducksoftware.integration.hub.rest.oauth;
 
 import java.net.MalformedURLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -31,20 +38,38 @@ import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.oauth.OAuthConfiguration;
 import com.blackducksoftware.integration.hub.api.oauth.Token;
 import com.blackducksoftware.integration.hub.proxy.ProxyInfo;
+import com.blackducksoftware.integration.hub.rest.RestClientRegistry;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder;
+import com.blackducksoftware.integration.hub.rest.exception.TokenStoreException;
 import com.blackducksoftware.integration.hub.service.HubOAuthTokenService;
 import com.blackducksoftware.integration.log.IntLogger;
 
 public class TokenManager {
     public static final String WWW_AUTH_RESP = "Authorization";
 
+    public static final double DEFAULT_REFRESH_FRACTION = 0.75;
+    public static final int DEFAULT_EXPIRY_MARGIN_SECONDS = 30;
+
+    private static final long MIN_REFRESH_RETRY_MILLIS = 1000L;
+
     private final IntLogger logger;
     private final int timeout;
     private OAuthConfiguration configuration;
-    private Token clientToken;
     private ProxyInfo proxyInfo;
     private boolean alwaysTrustServerCertificate;
+    private RestConnection tokenConnection;
+    private double refreshFraction = DEFAULT_REFRESH_FRACTION;
+    private int expiryMarginSeconds = DEFAULT_EXPIRY_MARGIN_SECONDS;
+    private boolean proactiveRefresh = true;
+    private ScheduledExecutorService refreshScheduler;
+    private UserTokenCache userTokenCache = new UserTokenCache();
+    private volatile TokenStore tokenStore;
+
+    private final Object tokenLock = new Object();
+    private volatile IssuedToken clientToken;
+    private final Map<AccessType, CompletableFuture<IssuedToken>> tokenRequests = new EnumMap<>(AccessType.class);
+    private final Map<AccessType, ScheduledFuture<?>> scheduledRefreshes = new EnumMap<>(AccessType.class);
 
     public TokenManager(final IntLogger logger, final int timeout) {
         this(logger, timeout, ProxyInfo.NO_PROXY_INFO, false);
@@ -70,7 +95,14 @@ public class TokenManager {
     }
 
     public void setConfiguration(final OAuthConfiguration configuration) {
-        this.configuration = configuration;
+        synchronized (tokenLock) {
+            this.configuration = configuration;
+            // the client token, and any token still being requested, belong to the previous configuration. User tokens stay cached under their own refresh token.
+            clientToken = null;
+            tokenRequests.clear();
+            cancelScheduledRefreshes();
+        }
+        clearConnection();
     }
 
     public ProxyInfo getProxyInfo() {
@@ -79,6 +111,7 @@ public class TokenManager {
 
     public void setProxyInfo(final ProxyInfo proxyInfo) {
         this.proxyInfo = proxyInfo;
+        clearConnection();
     }
 
     public boolean isAlwaysTrustServerCertificate() {
@@ -87,6 +120,78 @@ public class TokenManager {
 
     public void setAlwaysTrustServerCertificate(final boolean alwaysTrustServerCertificate) {
         this.alwaysTrustServerCertificate = alwaysTrustServerCertificate;
+        clearConnection();
+    }
+
+    public double getRefreshFraction() {
+        return refreshFraction;
+    }
+
+    /**
+     * The fraction of a token's lifetime after which it is refreshed in the background, between 0 and 1 exclusive. The default is 0.75.
+     */
+    public void setRefreshFraction(final double refreshFraction) {
+        if (refreshFraction <= 0 || refreshFraction >= 1) {
+            throw new IllegalArgumentException("The refresh fraction must be between 0 and 1");
+        }
+        this.refreshFraction = refreshFraction;
+    }
+
+    public int getExpiryMarginSeconds() {
+        return expiryMarginSeconds;
+    }
+
+    /**
+     * A token this close to its expiry is no longer handed out, to allow for the time the request takes and for clock differences.
+     */
+    public void setExpiryMarginSeconds(final int expiryMarginSeconds) {
+        this.expiryMarginSeconds = expiryMarginSeconds;
+    }
+
+    public boolean isProactiveRefresh() {
+        return proactiveRefresh;
+    }
+
+    /**
+     * Whether tokens are refreshed in the background before they expire. Turning it off cancels any refresh already scheduled.
+     */
+    public void setProactiveRefresh(final boolean proactiveRefresh) {
+        synchronized (tokenLock) {
+            this.proactiveRefresh = proactiveRefresh;
+            if (!proactiveRefresh) {
+                cancelScheduledRefreshes();
+            }
+        }
+    }
+
+    public ScheduledExecutorService getRefreshScheduler() {
+        return refreshScheduler != null ? refreshScheduler : RestClientRegistry.getInstance().getScheduler();
+    }
+
+    public void setRefreshScheduler(final ScheduledExecutorService refreshScheduler) {
+        this.refreshScheduler = refreshScheduler;
+    }
+
+    public UserTokenCache getUserTokenCache() {
+        return userTokenCache;
+    }
+
+    /**
+     * The cache of user tokens, which can be shared with other TokenManagers.
+     */
+    public void setUserTokenCache(final UserTokenCache userTokenCache) {
+        this.userTokenCache = userTokenCache;
+    }
+
+    public TokenStore getTokenStore() {
+        return tokenStore;
+    }
+
+    /**
+     * Where tokens are kept for other processes to reuse, such as a FileTokenStore. There is none by default.
+     */
+    public void setTokenStore(final TokenStore tokenStore) {
+        this.tokenStore = tokenStore;
     }
 
     public String createTokenCredential(final String token) {
@@ -107,64 +212,255 @@ public class TokenManager {
         return result;
     }
 
+    /**
+     * Requests a new token, even if the current one is still valid.
+     */
     public Token refreshToken(final AccessType accessType) throws IntegrationException {
-        Token result = null;
-        if (AccessType.USER.equals(accessType)) {
-            result = refreshUserAccessToken();
-        } else if (AccessType.CLIENT.equals(accessType)) {
-            result = refreshClientAccessToken();
+        if (accessType == null) {
+            return null;
         }
-
-        return result;
+        return acquireToken(accessType, false);
     }
 
+    /**
+     * The current token, requesting a new one only when there is none or it is about to expire.
+     */
     public Token getToken(final AccessType accessType) throws IntegrationException {
-        Token result = null;
+        if (accessType == null) {
+            return null;
+        }
+        final IssuedToken current = getIssuedToken(accessType);
+        if (isValid(current)) {
+            return current.getToken();
+        }
+        return acquireToken(accessType, true);
+    }
+
+    /**
+     * The current token along with when it was issued, or null if there is none yet. It may have expired.
+     */
+    public IssuedToken getIssuedToken(final AccessType accessType) {
         if (AccessType.USER.equals(accessType)) {
-            result = refreshUserAccessToken();
-        } else if (AccessType.CLIENT.equals(accessType)) {
-            if (clientToken == null) {
-                refreshClientAccessToken();
+            final OAuthConfiguration currentConfiguration = configuration;
+            return currentConfiguration == null ? null : userTokenCache.get(currentConfiguration.clientId, currentConfiguration.refreshToken);
+        }
+        return clientToken;
+    }
+
+    public boolean isValid(final IssuedToken issuedToken) {
+        return issuedToken != null && !issuedToken.isExpired(System.currentTimeMillis(), TimeUnit.SECONDS.toMillis(expiryMarginSeconds));
+    }
+
+    /**
+     * Only one token request per access type is in flight at a time: callers that arrive while one is running wait for its token, or its failure, instead of requesting their own.
+     */
+    private Token acquireToken(final AccessType accessType, final boolean onlyIfInvalid) throws IntegrationException {
+        final CompletableFuture<IssuedToken> request;
+        final OAuthConfiguration requestConfiguration;
+        synchronized (tokenLock) {
+            final IssuedToken current = getIssuedToken(accessType);
+            if (onlyIfInvalid && isValid(current)) {
+                return current.getToken();
             }
-            result = clientToken;
+            if (tokenRequests.containsKey(accessType)) {
+                request = tokenRequests.get(accessType);
+                requestConfiguration = null;
+            } else {
+                request = new CompletableFuture<>();
+                tokenRequests.put(accessType, request);
+                requestConfiguration = configuration;
+            }
+        }
+        if (requestConfiguration != null) {
+            requestToken(accessType, request, requestConfiguration, !onlyIfInvalid);
         }
+        return awaitToken(request).getToken();
+    }
 
-        return result;
+    private void requestToken(final AccessType accessType, final CompletableFuture<IssuedToken> request, final OAuthConfiguration requestConfiguration, final boolean replaceCurrent) {
+        try {
+            final IssuedToken issuedToken = obtainToken(accessType, requestConfiguration, replaceCurrent);
+            synchronized (tokenLock) {
+                if (AccessType.USER.equals(accessType)) {
+                    userTokenCache.put(requestConfiguration.clientId, requestConfiguration.refreshToken, issuedToken);
+                } else if (requestConfiguration == configuration) {
+                    clientToken = issuedToken;
+                }
+                if (requestConfiguration == configuration) {
+                    scheduleRefresh(accessType, issuedToken, issuedToken.getRefreshAt(refreshFraction) - System.currentTimeMillis());
+                }
+            }
+            request.complete(issuedToken);
+        } catch (final IntegrationException | RuntimeException ex) {
+            request.completeExceptionally(ex);
+        } finally {
+            synchronized (tokenLock) {
+                tokenRequests.remove(accessType, request);
+            }
+        }
     }
 
-    private Token refreshUserAccessToken() throws IntegrationException {
-        Token result = null;
-        if (StringUtils.isNotBlank(configuration.refreshToken)) {
+    /**
+     * Takes the token from the token store when another process has already stored a usable one, and requests it otherwise.
+     */
+    private IssuedToken obtainToken(final AccessType accessType, final OAuthConfiguration requestConfiguration, final boolean replaceCurrent) throws IntegrationException {
+        if (AccessType.USER.equals(accessType) && StringUtils.isBlank(requestConfiguration.refreshToken)) {
+            throw new IntegrationException("No token present to refresh");
+        }
+        final IssuedToken current = AccessType.USER.equals(accessType) ? userTokenCache.get(requestConfiguration.clientId, requestConfiguration.refreshToken) : clientToken;
+        final TokenStore currentTokenStore = tokenStore;
+        if (currentTokenStore == null) {
+            return new IssuedToken(fetchToken(accessType, requestConfiguration, current), System.currentTimeMillis());
+        }
+
+        final IssuedToken[] requested = new IssuedToken[1];
+        try {
+            return currentTokenStore.getOrRequest(createStoreKey(accessType, requestConfiguration), stored -> isUsable(stored, current, replaceCurrent), stored -> {
+                requested[0] = new IssuedToken(fetchToken(accessType, requestConfiguration, newest(current, stored)), System.currentTimeMillis());
+                return requested[0];
+            });
+        } catch (final TokenStoreException e) {
+            if (logger != null) {
+                logger.warn(String.format("Could not use the token store: %s", e.getMessage()));
+            }
+            if (requested[0] != null) {
+                return requested[0];
+            }
+            return new IssuedToken(fetchToken(accessType, requestConfiguration, current), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * A stored token replaces the current one only if it is a different token that is not due for a refresh itself.
+     */
+    private boolean isUsable(final IssuedToken stored, final IssuedToken current, final boolean replaceCurrent) {
+        if (!isValid(stored)) {
+            return false;
+        }
+        if (!replaceCurrent) {
+            return true;
+        }
+        final boolean sameToken = current != null && StringUtils.equals(current.getToken().accessToken, stored.getToken().accessToken);
+        return !sameToken && System.currentTimeMillis() < stored.getRefreshAt(refreshFraction);
+    }
+
+    private IssuedToken newest(final IssuedToken first, final IssuedToken second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return second.getIssuedAt() > first.getIssuedAt() ? second : first;
+    }
+
+    private String createStoreKey(final AccessType accessType, final OAuthConfiguration requestConfiguration) {
+        final String key = String.format("%s %s %s", accessType, requestConfiguration.tokenUri, requestConfiguration.clientId);
+        if (AccessType.USER.equals(accessType)) {
+            return key + " " + requestConfiguration.refreshToken;
+        }
+        return key;
+    }
+
+    /**
+     * @param latest
+     *            the newest token known for this configuration, or null. A user token's refresh token replaces the configured one, which the Hub may have rotated since.
+     */
+    private Token fetchToken(final AccessType accessType, final OAuthConfiguration requestConfiguration, final IssuedToken latest) throws IntegrationException {
+        if (AccessType.USER.equals(accessType)) {
+            final String refreshToken = latest != null && StringUtils.isNotBlank(latest.getToken().refreshToken) ? latest.getToken().refreshToken : requestConfiguration.refreshToken;
             try {
                 final RestConnection connection = createConnection();
 
                 final HubOAuthTokenService tokenService = new HubOAuthTokenService(connection);
-                result = tokenService.refreshUserToken(configuration.clientId, configuration.refreshToken);
+                return tokenService.refreshUserToken(requestConfiguration.clientId, refreshToken);
             } catch (final IntegrationException | MalformedURLException ex) {
                 throw new IntegrationException("Error refreshing user token", ex);
             }
-        } else {
-            throw new IntegrationException("No token present to refresh");
         }
-
-        return result;
-    }
-
-    private Token refreshClientAccessToken() throws IntegrationException {
-        Token result = null;
         try {
             final RestConnection connection = createConnection();
 
             final HubOAuthTokenService tokenService = new HubOAuthTokenService(connection);
-            result = tokenService.refreshClientToken(configuration.clientId);
-            clientToken = result;
+            return tokenService.refreshClientToken(requestConfiguration.clientId);
         } catch (final IntegrationException | MalformedURLException ex) {
             throw new IntegrationException("Error refreshing client token", ex);
         }
-        return result;
     }
 
-    private RestConnection createConnection() throws MalformedURLException {
+    private IssuedToken awaitToken(final CompletableFuture<IssuedToken> request) throws IntegrationException {
+        try {
+            return request.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IntegrationException("Interrupted while waiting for the token", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IntegrationException) {
+                throw (IntegrationException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IntegrationException("Error refreshing token", cause);
+        }
+    }
+
+    /**
+     * Must be called holding the token lock.
+     */
+    private void scheduleRefresh(final AccessType accessType, final IssuedToken issuedToken, final long delayMillis) {
+        final ScheduledFuture<?> previous = scheduledRefreshes.remove(accessType);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        if (!proactiveRefresh || !issuedToken.hasExpiry()) {
+            return;
+        }
+        // the token request blocks, so it runs on a background worker instead of the shared scheduler thread or the common fork join pool
+        final ScheduledFuture<?> scheduledRefresh = getRefreshScheduler().schedule(() -> RestClientRegistry.getInstance().getBackgroundExecutor().execute(() -> refreshInBackground(accessType, issuedToken)), Math.max(0, delayMillis),
+                TimeUnit.MILLISECONDS);
+        scheduledRefreshes.put(accessType, scheduledRefresh);
+    }
+
+    /**
+     * Nothing waits on a background refresh, so every failure is logged here.
+     */
+    private void refreshInBackground(final AccessType accessType, final IssuedToken expiringToken) {
+        try {
+            if (getIssuedToken(accessType) != expiringToken) {
+                // already replaced, or the configuration changed
+                return;
+            }
+            acquireToken(accessType, false);
+        } catch (final IntegrationException | RuntimeException e) {
+            if (logger != null) {
+                logger.warn(String.format("Could not refresh the %s token before it expires: %s", accessType, e.getMessage()));
+            }
+            synchronized (tokenLock) {
+                // try again while the current token is still usable
+                final long remainingMillis = expiringToken.getExpiresAt() - TimeUnit.SECONDS.toMillis(expiryMarginSeconds) - System.currentTimeMillis();
+                if (getIssuedToken(accessType) == expiringToken && remainingMillis > MIN_REFRESH_RETRY_MILLIS) {
+                    scheduleRefresh(accessType, expiringToken, Math.max(MIN_REFRESH_RETRY_MILLIS, remainingMillis / 2));
+                }
+            }
+        }
+    }
+
+    private void cancelScheduledRefreshes() {
+        for (final ScheduledFuture<?> scheduledRefresh : scheduledRefreshes.values()) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefreshes.clear();
+    }
+
+    /**
+     * Reuses the token endpoint connection between refreshes instead of building a new one each time.
+     */
+    private synchronized RestConnection createConnection() throws MalformedURLException {
+        if (tokenConnection != null && tokenConnection.hubBaseUrl.toString().equals(configuration.tokenUri)) {
+            return tokenConnection;
+        }
         final UnauthenticatedRestConnectionBuilder connectionBuilder = new UnauthenticatedRestConnectionBuilder();
         connectionBuilder.setBaseUrl(configuration.tokenUri);
         connectionBuilder.setTimeout(timeout);
@@ -172,8 +468,12 @@ public class TokenManager {
         connectionBuilder.setAlwaysTrustServerCertificate(alwaysTrustServerCertificate);
         connectionBuilder.applyProxyInfo(proxyInfo);
 
-        final RestConnection connection = connectionBuilder.build();
-        return connection;
+        tokenConnection = connectionBuilder.build();
+        return tokenConnection;
+    }
+
+    private synchronized void clearConnection() {
+        tokenConnection = null;
     }
 
 }
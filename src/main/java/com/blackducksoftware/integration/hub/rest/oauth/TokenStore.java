@@ -0,0 +1,68 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.oauth;
+
+import java.util.function.Predicate;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.rest.exception.TokenStoreException;
+
+/**
+ * Keeps tokens beyond the life of a TokenManager, so that another process can reuse a token that is still valid instead of requesting its own. The keys are created by the TokenManager and include the refresh token of user
+ * tokens, so implementations should not expose them.
+ */
+public interface TokenStore {
+    /**
+     * The stored token, which may have expired, or null if there is none.
+     */
+    IssuedToken load(String key) throws TokenStoreException;
+
+    void store(String key, IssuedToken issuedToken) throws TokenStoreException;
+
+    void remove(String key) throws TokenStoreException;
+
+    /**
+     * Returns the stored token if it is usable, otherwise requests a new one and stores it. Implementations shared between processes should make this one step, so that concurrent callers wait for the first request instead of
+     * making their own.
+     */
+    default IssuedToken getOrRequest(final String key, final Predicate<IssuedToken> usable, final TokenRequest tokenRequest) throws IntegrationException {
+        final IssuedToken stored = load(key);
+        if (stored != null && usable.test(stored)) {
+            return stored;
+        }
+        final IssuedToken issuedToken = tokenRequest.request(stored);
+        store(key, issuedToken);
+        return issuedToken;
+    }
+
+    @FunctionalInterface
+    interface TokenRequest {
+        /**
+         * @param stored
+         *            the token in the store that was not usable, or null. A user token's refresh token may be newer than the configured one.
+         */
+        IssuedToken request(IssuedToken stored) throws IntegrationException;
+    }
+
+}
@@ -0,0 +1,161 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.oauth;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The access tokens of many users, keyed by the client id and the refresh token they were obtained with. The least recently used entries are evicted once there are more than maxSize keys.
+ *
+ * When the Hub issues a new refresh token along with an access token, the entry becomes reachable under the new refresh token as well, and looking it up with the old refresh token keeps returning the newest token of that user. A
+ * cache can be shared between TokenManagers so that each user's token is only requested once per node.
+ */
+public class UserTokenCache {
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final int maxSize;
+
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong rotationCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public UserTokenCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public UserTokenCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size must be greater than 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The newest token obtained with the refresh token, or with a refresh token that the Hub replaced with a later one. It may have expired; use its refresh token to request a new one.
+     */
+    public IssuedToken get(final String clientId, final String refreshToken) {
+        if (StringUtils.isBlank(refreshToken)) {
+            return null;
+        }
+        final CacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(createKey(clientId, refreshToken));
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.issuedToken;
+    }
+
+    /**
+     * Stores the token obtained with the refresh token, also under the token's own refresh token when the Hub rotated it.
+     */
+    public void put(final String clientId, final String refreshToken, final IssuedToken issuedToken) {
+        if (StringUtils.isBlank(refreshToken)) {
+            return;
+        }
+        final String rotatedRefreshToken = issuedToken.getToken().refreshToken;
+        synchronized (entries) {
+            final String key = createKey(clientId, refreshToken);
+            CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                entry = new CacheEntry();
+                entries.put(key, entry);
+            }
+            entry.issuedToken = issuedToken;
+            if (StringUtils.isNotBlank(rotatedRefreshToken) && !rotatedRefreshToken.equals(refreshToken)) {
+                final CacheEntry previous = entries.put(createKey(clientId, rotatedRefreshToken), entry);
+                if (previous != entry) {
+                    rotationCount.incrementAndGet();
+                }
+            }
+            final Iterator<CacheEntry> iterator = entries.values().iterator();
+            while (entries.size() > maxSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    public void invalidate(final String clientId, final String refreshToken) {
+        synchronized (entries) {
+            final CacheEntry removed = entries.remove(createKey(clientId, refreshToken));
+            if (removed != null) {
+                // the keys it was rotated under point at the same token
+                entries.values().removeIf(entry -> entry == removed);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getRotationCount() {
+        return rotationCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private String createKey(final String clientId, final String refreshToken) {
+        return clientId + " " + refreshToken;
+    }
+
+    private static class CacheEntry {
+        private volatile IssuedToken issuedToken;
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.ratelimit;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Request;
+
+/**
+ * Throttles the requests of every connection it is set on. Reads (GET, HEAD and OPTIONS) and writes can draw from separate buckets. A request waits at most the maximum wait for its permit; with a maximum wait of 0 it fails
+ * immediately instead of waiting.
+ */
+public class RequestRateLimiter {
+    private static final Set<String> READ_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS"));
+
+    private final TokenBucket readBucket;
+    private final TokenBucket writeBucket;
+    private final long maxWaitNanos;
+
+    public RequestRateLimiter(final TokenBucket bucket, final long maxWait, final TimeUnit timeUnit) {
+        this(bucket, bucket, maxWait, timeUnit);
+    }
+
+    public RequestRateLimiter(final TokenBucket readBucket, final TokenBucket writeBucket, final long maxWait, final TimeUnit timeUnit) {
+        this.readBucket = readBucket;
+        this.writeBucket = writeBucket;
+        this.maxWaitNanos = timeUnit.toNanos(maxWait);
+    }
+
+    /**
+     * @return the number of nanoseconds to wait before sending the request, or -1 if it cannot be sent within the maximum wait
+     */
+    public long reserve(final Request request) {
+        return getBucket(request).reserve(maxWaitNanos);
+    }
+
+    public TokenBucket getBucket(final Request request) {
+        if (READ_METHODS.contains(request.method())) {
+            return readBucket;
+        }
+        return writeBucket;
+    }
+
+    public TokenBucket getReadBucket() {
+        return readBucket;
+    }
+
+    public TokenBucket getWriteBucket() {
+        return writeBucket;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out permits at a steady rate while allowing bursts of up to the bucket's capacity. Permits are reserved, so a caller that has to wait knows exactly how long and later callers queue up behind it.
+ */
+public class TokenBucket {
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double availablePermits;
+    private long lastRefill;
+
+    public TokenBucket(final double permitsPerSecond, final int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("The permits per second and the burst must be greater than 0.");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = burst;
+        this.availablePermits = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Reserves a permit if one becomes available within the maximum wait.
+     * @return the number of nanoseconds the caller must wait before using the permit, or -1 if no permit was reserved
+     */
+    public synchronized long reserve(final long maxWaitNanos) {
+        refill();
+        final long waitNanos = availablePermits >= 1 ? 0 : (long) Math.ceil((1 - availablePermits) / permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        availablePermits -= 1;
+        return waitNanos;
+    }
+
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    public boolean tryAcquire(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        final long waitNanos = reserve(timeUnit.toNanos(timeout));
+        if (waitNanos < 0) {
+            return false;
+        }
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+        return true;
+    }
+
+    public void acquire() throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(reserve(Long.MAX_VALUE));
+    }
+
+    public synchronized double getAvailablePermits() {
+        refill();
+        return availablePermits;
+    }
+
+    private void refill() {
+        final long now = System.nanoTime();
+        availablePermits = Math.min(capacity, availablePermits + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+
+}
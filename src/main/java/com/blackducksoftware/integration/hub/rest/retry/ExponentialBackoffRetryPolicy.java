@@ -0,0 +1,154 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.retry;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Retries idempotent requests that failed with an IOException or with a 429, 502, 503 or 504 response, waiting a random time between zero and an exponentially growing backoff ("full jitter"). A Retry-After header on a 429 or 503
+ * response is honored instead of the backoff. Retries stop after the maximum number of attempts, or when the next attempt would start after the time budget is spent.
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+    public static final String RETRY_AFTER = "Retry-After";
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE"));
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = new HashSet<>(Arrays.asList(429, 502, 503, 504));
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxElapsedMillis;
+    private final boolean retryNonIdempotentRequests;
+
+    public ExponentialBackoffRetryPolicy(final int maxAttempts, final long initialBackoff, final long maxBackoff, final long maxElapsed, final TimeUnit timeUnit) {
+        this(maxAttempts, initialBackoff, maxBackoff, maxElapsed, timeUnit, false);
+    }
+
+    /**
+     * @param retryNonIdempotentRequests
+     *            also retry POST and PATCH requests, which may then be applied more than once by the Hub
+     */
+    public ExponentialBackoffRetryPolicy(final int maxAttempts, final long initialBackoff, final long maxBackoff, final long maxElapsed, final TimeUnit timeUnit, final boolean retryNonIdempotentRequests) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The maximum attempts must be at least 1.");
+        }
+        if (initialBackoff < 0 || maxBackoff < initialBackoff || maxElapsed < 0) {
+            throw new IllegalArgumentException("The backoff durations must be positive and the maximum backoff cannot be less than the initial backoff.");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = timeUnit.toMillis(initialBackoff);
+        this.maxBackoffMillis = timeUnit.toMillis(maxBackoff);
+        this.maxElapsedMillis = timeUnit.toMillis(maxElapsed);
+        this.retryNonIdempotentRequests = retryNonIdempotentRequests;
+    }
+
+    @Override
+    public long getRetryDelay(final Request request, final Response response, final IOException exception, final int attempt, final long elapsedMillis) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        if (!retryNonIdempotentRequests && !IDEMPOTENT_METHODS.contains(request.method())) {
+            return -1;
+        }
+        if (response != null && !RETRYABLE_STATUS_CODES.contains(response.code())) {
+            return -1;
+        }
+
+        long delay = -1;
+        if (response != null && (response.code() == 429 || response.code() == 503)) {
+            delay = parseRetryAfter(response.header(RETRY_AFTER));
+        }
+        if (delay < 0) {
+            delay = calculateBackoff(attempt);
+        }
+        if (elapsedMillis + delay > maxElapsedMillis) {
+            return -1;
+        }
+        return delay;
+    }
+
+    public long calculateBackoff(final int attempt) {
+        // cap the shift so the backoff cannot overflow
+        final long exponentialBackoff = initialBackoffMillis << Math.min(attempt - 1, 30);
+        final long cappedBackoff = exponentialBackoff < 0 ? maxBackoffMillis : Math.min(maxBackoffMillis, exponentialBackoff);
+        return ThreadLocalRandom.current().nextLong(cappedBackoff + 1);
+    }
+
+    /**
+     * @return the delay in milliseconds for a Retry-After value in either delta-seconds or HTTP-date form, or -1 if it is missing or cannot be parsed
+     */
+    public long parseRetryAfter(final String retryAfter) {
+        if (StringUtils.isBlank(retryAfter)) {
+            return -1;
+        }
+        final String value = retryAfter.trim();
+        if (StringUtils.isNumeric(value)) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+            } catch (final NumberFormatException e) {
+                return -1;
+            }
+        }
+        try {
+            final ZonedDateTime retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, retryAt.toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch (final DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    public long getMaxElapsedMillis() {
+        return maxElapsedMillis;
+    }
+
+    public boolean isRetryNonIdempotentRequests() {
+        return retryNonIdempotentRequests;
+    }
+
+}
@@ -0,0 +1,56 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.rest.retry;
+
+import java.io.IOException;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Decides whether a failed request should be sent again, and how long to wait first. A request fails either with an IOException or with an unsuccessful response; 401 responses are handled by re-authenticating and never reach the
+ * policy.
+ */
+public interface RetryPolicy {
+    RetryPolicy NO_RETRY = new RetryPolicy() {
+        @Override
+        public long getRetryDelay(final Request request, final Response response, final IOException exception, final int attempt, final long elapsedMillis) {
+            return -1;
+        }
+    };
+
+    /**
+     * @param response
+     *            the unsuccessful response, or null if the request failed with an exception
+     * @param exception
+     *            the failure, or null if a response was received
+     * @param attempt
+     *            the number of attempts made so far, starting at 1
+     * @param elapsedMillis
+     *            the time spent since the first attempt started
+     * @return the number of milliseconds to wait before the next attempt, or a negative number to stop retrying
+     */
+    long getRetryDelay(Request request, Response response, IOException exception, int attempt, long elapsedMillis);
+
+}
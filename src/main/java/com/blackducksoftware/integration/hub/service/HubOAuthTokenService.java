@@ -23,7 +23,6 @@
  */
 package com.blackducksoftware.integration.hub.service;
 
-import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -34,16 +33,11 @@ import com.blackducksoftware.integration.hub.api.oauth.Token;
 import com.blackducksoftware.integration.hub.request.HubRequest;
 import com.blackducksoftware.integration.hub.request.HubRequestFactory;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
-import com.google.gson.Gson;
-
-import okhttp3.Response;
 
 public class HubOAuthTokenService {
-    private final Gson gson;
     private final HubRequestFactory hubRequestFactory;
 
     public HubOAuthTokenService(final RestConnection restConnection) {
-        this.gson = restConnection.gson;
         this.hubRequestFactory = new HubRequestFactory(restConnection);
     }
 
@@ -99,12 +93,7 @@ public class HubOAuthTokenService {
 
     private Token getTokenFromEncodedPost(final Map<String, String> formDataMap) throws IntegrationException {
         final HubRequest request = hubRequestFactory.createRequest();
-        try (Response response = request.executeEncodedFormPost(formDataMap)) {
-            final String jsonToken = response.body().string();
-            return gson.fromJson(jsonToken, Token.class);
-        } catch (final IOException e) {
-            throw new IntegrationException(e);
-        }
+        return request.executeEncodedFormPostAs(formDataMap, Token.class);
     }
 
 }
@@ -23,13 +23,19 @@
  */
 package com.blackducksoftware.integration.hub.validator;
 
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
+
+import com.blackducksoftware.integration.hub.rest.HttpProtocolMode;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.rest.RestConnectionFieldEnum;
+import com.blackducksoftware.integration.hub.rest.retry.RetryPolicy;
 import com.blackducksoftware.integration.log.IntLogger;
 import com.blackducksoftware.integration.validator.AbstractValidator;
 import com.blackducksoftware.integration.validator.ValidationResult;
@@ -50,8 +56,35 @@ public abstract class AbstractRestConnectionValidator extends AbstractValidator
 
     public static final String ERROR_MSG_URL_NOT_VALID = "The Hub Url is not a valid URL.";
 
+    public static final String ERROR_MSG_MAX_IDLE_CONNECTIONS_NOT_VALID = "The maximum idle connections cannot be negative.";
+
+    public static final String ERROR_MSG_KEEP_ALIVE_DURATION_NOT_VALID = "The keep alive duration must be greater than 0.";
+
+    public static final String ERROR_MSG_MAX_REQUESTS_NOT_VALID = "The maximum requests must be greater than 0.";
+
+    public static final String ERROR_MSG_MAX_REQUESTS_PER_HOST_NOT_VALID = "The maximum requests per host must be greater than 0.";
+
+    public static final String ERROR_MSG_PROTOCOL_MODE_NOT_VALID = "The protocol mode cannot be null";
+
+    public static final String ERROR_MSG_CACHE_DIRECTORY_NOT_VALID = "The cache directory is not a directory.";
+
+    public static final String ERROR_MSG_CACHE_MAX_SIZE_NOT_VALID = "The cache maximum size must be greater than 0.";
+
+    public static final String ERROR_MSG_STALE_WHILE_REVALIDATE_NOT_VALID = "The stale while revalidate duration cannot be negative.";
+
+    public static final String ERROR_MSG_RETRY_POLICY_NOT_VALID = "The retry policy cannot be null";
+
     private String baseUrl;
     private int timeout = 120;
+    private int maxIdleConnections = RestConnection.DEFAULT_MAX_IDLE_CONNECTIONS;
+    private int keepAliveDuration = RestConnection.DEFAULT_KEEP_ALIVE_DURATION;
+    private int maxRequests = RestConnection.DEFAULT_MAX_REQUESTS;
+    private int maxRequestsPerHost = RestConnection.DEFAULT_MAX_REQUESTS_PER_HOST;
+    private HttpProtocolMode protocolMode = HttpProtocolMode.HTTP_2;
+    private String cacheDirectory;
+    private long cacheMaxSize = RestConnection.DEFAULT_CACHE_MAX_SIZE;
+    private int staleWhileRevalidate;
+    private RetryPolicy retryPolicy = RetryPolicy.NO_RETRY;
     private String proxyHost;
     private int proxyPort;
     private String proxyUsername;
@@ -67,6 +100,11 @@ public abstract class AbstractRestConnectionValidator extends AbstractValidator
         validateLogger(result);
         validateCommonRequestHeaders(result);
         validateProxyInfo(result);
+        validateConnectionPool(result);
+        validateDispatcher(result);
+        validateProtocolMode(result);
+        validateCache(result);
+        validateRetryPolicy(result);
         validateAdditionalFields(result);
         return result;
     }
@@ -93,6 +131,52 @@ public abstract class AbstractRestConnectionValidator extends AbstractValidator
         }
     }
 
+    public void validateConnectionPool(final ValidationResults result) {
+        if (maxIdleConnections < 0) {
+            result.addResult(RestConnectionFieldEnum.MAX_IDLE_CONNECTIONS, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_MAX_IDLE_CONNECTIONS_NOT_VALID));
+        }
+        if (keepAliveDuration <= 0) {
+            result.addResult(RestConnectionFieldEnum.KEEP_ALIVE_DURATION, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_KEEP_ALIVE_DURATION_NOT_VALID));
+        }
+    }
+
+    public void validateDispatcher(final ValidationResults result) {
+        if (maxRequests <= 0) {
+            result.addResult(RestConnectionFieldEnum.MAX_REQUESTS, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_MAX_REQUESTS_NOT_VALID));
+        }
+        if (maxRequestsPerHost <= 0) {
+            result.addResult(RestConnectionFieldEnum.MAX_REQUESTS_PER_HOST, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_MAX_REQUESTS_PER_HOST_NOT_VALID));
+        }
+    }
+
+    public void validateProtocolMode(final ValidationResults result) {
+        if (protocolMode == null) {
+            result.addResult(RestConnectionFieldEnum.PROTOCOL_MODE, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_PROTOCOL_MODE_NOT_VALID));
+        }
+    }
+
+    public void validateCache(final ValidationResults result) {
+        if (StringUtils.isBlank(cacheDirectory)) {
+            return;
+        }
+        final File directory = new File(cacheDirectory);
+        if (directory.exists() && !directory.isDirectory()) {
+            result.addResult(RestConnectionFieldEnum.CACHE, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_CACHE_DIRECTORY_NOT_VALID));
+        }
+        if (cacheMaxSize <= 0) {
+            result.addResult(RestConnectionFieldEnum.CACHE, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_CACHE_MAX_SIZE_NOT_VALID));
+        }
+        if (staleWhileRevalidate < 0) {
+            result.addResult(RestConnectionFieldEnum.STALE_WHILE_REVALIDATE, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_STALE_WHILE_REVALIDATE_NOT_VALID));
+        }
+    }
+
+    public void validateRetryPolicy(final ValidationResults result) {
+        if (retryPolicy == null) {
+            result.addResult(RestConnectionFieldEnum.RETRY_POLICY, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_RETRY_POLICY_NOT_VALID));
+        }
+    }
+
     public void validateLogger(final ValidationResults result) {
         if (logger == null) {
             result.addResult(RestConnectionFieldEnum.LOGGER, new ValidationResult(ValidationResultEnum.ERROR, ERROR_MSG_LOGGER_NOT_VALID));
@@ -133,6 +217,78 @@ public abstract class AbstractRestConnectionValidator extends AbstractValidator
         this.timeout = timeout;
     }
 
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public void setMaxIdleConnections(final int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+    }
+
+    public int getKeepAliveDuration() {
+        return keepAliveDuration;
+    }
+
+    public void setKeepAliveDuration(final int keepAliveDuration) {
+        this.keepAliveDuration = keepAliveDuration;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public void setMaxRequests(final int maxRequests) {
+        this.maxRequests = maxRequests;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public void setMaxRequestsPerHost(final int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    public HttpProtocolMode getProtocolMode() {
+        return protocolMode;
+    }
+
+    public void setProtocolMode(final HttpProtocolMode protocolMode) {
+        this.protocolMode = protocolMode;
+    }
+
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory(final String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(final long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public int getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public void setStaleWhileRevalidate(final int staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(final RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
     public String getProxyHost() {
         return proxyHost;
     }
@@ -37,6 +37,14 @@ class BuilderFieldEnumTest {
         assert "restConnectionTimeout" == RestConnectionFieldEnum.TIMEOUT.getKey()
         assert "restConnectionLogger" == RestConnectionFieldEnum.LOGGER.getKey()
         assert "restConnectionHeaders" == RestConnectionFieldEnum.COMMON_HEADERS.getKey()
+        assert "restConnectionMaxIdleConnections" == RestConnectionFieldEnum.MAX_IDLE_CONNECTIONS.getKey()
+        assert "restConnectionKeepAliveDuration" == RestConnectionFieldEnum.KEEP_ALIVE_DURATION.getKey()
+        assert "restConnectionMaxRequests" == RestConnectionFieldEnum.MAX_REQUESTS.getKey()
+        assert "restConnectionMaxRequestsPerHost" == RestConnectionFieldEnum.MAX_REQUESTS_PER_HOST.getKey()
+        assert "restConnectionProtocolMode" == RestConnectionFieldEnum.PROTOCOL_MODE.getKey()
+        assert "restConnectionCache" == RestConnectionFieldEnum.CACHE.getKey()
+        assert "restConnectionStaleWhileRevalidate" == RestConnectionFieldEnum.STALE_WHILE_REVALIDATE.getKey()
+        assert "restConnectionRetryPolicy" == RestConnectionFieldEnum.RETRY_POLICY.getKey()
     }
 
     @Test
@@ -0,0 +1,117 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.exception.IntegrationException
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.metrics.CallTimings
+import com.blackducksoftware.integration.hub.rest.metrics.RestMetricsListener
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.SocketPolicy
+
+class CallTimingTest {
+    private final MockWebServer server = new MockWebServer();
+    private final List<CallTimings> timings = new CopyOnWriteArrayList<>()
+
+    @Before public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private HubRequestFactory getHubRequestFactory(RestMetricsListener metricsListener){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.metricsListener = metricsListener
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        new HubRequestFactory(builder.build())
+    }
+
+    @Test
+    public void testPhasesAreTimed(){
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('first').setHeadersDelay(100, TimeUnit.MILLISECONDS))
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('second'))
+        HubRequestFactory hubRequestFactory = getHubRequestFactory({ timings.add(it) } as RestMetricsListener)
+
+        hubRequestFactory.createRequest().executeGet().withCloseable{ assert 'first' == it.body().string() }
+        hubRequestFactory.createRequest().executePost('{"name":"value"}').withCloseable{ assert 'second' == it.body().string() }
+
+        assert 2 == timings.size()
+        CallTimings first = timings[0]
+        assert 'GET' == first.method
+        assert 200 == first.statusCode
+        assert !first.failed
+        assert !first.connectionReused
+        assert first.connectNanos >= 0
+        assert CallTimings.NOT_MEASURED == first.secureConnectNanos
+        assert first.connectionAcquireNanos >= first.connectNanos
+        assert first.timeToFirstByteNanos >= TimeUnit.MILLISECONDS.toNanos(100)
+        assert 5 == first.responseBodyBytes
+        assert first.totalNanos >= first.timeToFirstByteNanos
+
+        CallTimings second = timings[1]
+        assert 'POST' == second.method
+        assert second.connectionReused
+        assert CallTimings.NOT_MEASURED == second.connectNanos
+        assert CallTimings.NOT_MEASURED == second.dnsNanos
+        assert 16 == second.requestBodyBytes
+        assert second.requestWriteNanos >= 0
+    }
+
+    @Test
+    public void testFailedCallIsReported(){
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START))
+        HubRequestFactory hubRequestFactory = getHubRequestFactory({ timings.add(it) } as RestMetricsListener)
+        try{
+            hubRequestFactory.createRequest().executeGet()
+            fail('Should have thrown exception')
+        } catch (IntegrationException e){
+        }
+        assert timings.size() >= 1
+        assert timings.every{ it.failed && -1 == it.statusCode }
+    }
+
+    @Test
+    public void testBrokenListenerDoesNotBreakCalls(){
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('ok'))
+        HubRequestFactory hubRequestFactory = getHubRequestFactory({ throw new IllegalStateException('broken') } as RestMetricsListener)
+        hubRequestFactory.createRequest().executeGet().withCloseable{ assert 'ok' == it.body().string() }
+    }
+}
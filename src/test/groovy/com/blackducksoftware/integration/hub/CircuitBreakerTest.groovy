@@ -0,0 +1,221 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubRequest
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.RestConnection
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.circuitbreaker.CircuitBreaker
+import com.blackducksoftware.integration.hub.rest.circuitbreaker.CircuitBreakerConfiguration
+import com.blackducksoftware.integration.hub.rest.circuitbreaker.CircuitBreakerListener
+import com.blackducksoftware.integration.hub.rest.circuitbreaker.CircuitBreakerRegistry
+import com.blackducksoftware.integration.hub.rest.circuitbreaker.CircuitBreakerState
+import com.blackducksoftware.integration.hub.rest.exception.CircuitBreakerOpenException
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.HttpUrl
+import okhttp3.Interceptor
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+
+class CircuitBreakerTest {
+    private final MockWebServer server = new MockWebServer();
+
+    @Before public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private CircuitBreakerConfiguration getConfiguration(){
+        CircuitBreakerConfiguration configuration = new CircuitBreakerConfiguration()
+        configuration.slidingWindowSize = 4
+        configuration.minimumNumberOfCalls = 4
+        configuration.failureRateThreshold = 50
+        configuration.slowCallRateThreshold = 100
+        configuration.slowCallDurationMillis = 1000
+        configuration.waitDurationInOpenStateMillis = 50
+        configuration.permittedNumberOfCallsInHalfOpenState = 2
+        configuration
+    }
+
+    @Test
+    public void testStateTransitions(){
+        List<String> transitions = []
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry(getConfiguration())
+        registry.addListener({ host, from, to -> transitions.add("${from}->${to}".toString()) } as CircuitBreakerListener)
+        CircuitBreaker circuitBreaker = registry.getCircuitBreaker(HttpUrl.parse('https://hub.example.com/api'))
+        assert circuitBreaker.is(registry.getCircuitBreaker(HttpUrl.parse('https://hub.example.com/api/projects')))
+        assert 'hub.example.com:443' == circuitBreaker.host
+
+        circuitBreaker.onSuccess(10)
+        circuitBreaker.onSuccess(10)
+        circuitBreaker.onFailure(10)
+        assert CircuitBreakerState.CLOSED == circuitBreaker.state
+        circuitBreaker.onFailure(10)
+        assert CircuitBreakerState.OPEN == circuitBreaker.state
+        assert !circuitBreaker.tryAcquirePermission()
+
+        Thread.sleep(60)
+        assert circuitBreaker.tryAcquirePermission()
+        assert CircuitBreakerState.HALF_OPEN == circuitBreaker.state
+        assert circuitBreaker.tryAcquirePermission()
+        assert !circuitBreaker.tryAcquirePermission()
+        circuitBreaker.onSuccess(10)
+        circuitBreaker.onSuccess(10)
+        assert CircuitBreakerState.CLOSED == circuitBreaker.state
+        assert ['CLOSED->OPEN', 'OPEN->HALF_OPEN', 'HALF_OPEN->CLOSED'] == transitions
+    }
+
+    @Test
+    public void testReleasedPermissionIsReusedInHalfOpen(){
+        CircuitBreaker circuitBreaker = new CircuitBreakerRegistry(getConfiguration()).getCircuitBreaker(HttpUrl.parse('https://hub.example.com'))
+        4.times { circuitBreaker.onFailure(10) }
+        assert CircuitBreakerState.OPEN == circuitBreaker.state
+
+        Thread.sleep(60)
+        assert circuitBreaker.tryAcquirePermission()
+        assert circuitBreaker.tryAcquirePermission()
+        assert !circuitBreaker.tryAcquirePermission()
+        circuitBreaker.releasePermission()
+        assert circuitBreaker.tryAcquirePermission()
+        assert CircuitBreakerState.HALF_OPEN == circuitBreaker.state
+    }
+
+    @Test
+    public void testMinimumNumberOfCallsLargerThanWindowRejected(){
+        CircuitBreakerConfiguration configuration = getConfiguration()
+        configuration.minimumNumberOfCalls = 5
+        try{
+            new CircuitBreakerRegistry(configuration)
+            fail('Should have thrown exception')
+        } catch (IllegalArgumentException e){
+            assert e.message.contains('minimum number of calls')
+        }
+    }
+
+    @Test
+    public void testHalfOpenCallsLargerThanWindowRejected(){
+        CircuitBreakerConfiguration configuration = getConfiguration()
+        configuration.permittedNumberOfCallsInHalfOpenState = 5
+        try{
+            new CircuitBreakerRegistry(configuration)
+            fail('Should have thrown exception')
+        } catch (IllegalArgumentException e){
+            assert e.message.contains('half open state')
+        }
+    }
+
+    @Test
+    public void testSlowCallsOpenCircuit(){
+        CircuitBreaker circuitBreaker = new CircuitBreakerRegistry(getConfiguration()).getCircuitBreaker(HttpUrl.parse('https://hub.example.com'))
+        4.times { circuitBreaker.onSuccess(5000) }
+        assert CircuitBreakerState.OPEN == circuitBreaker.state
+        assert circuitBreaker.remainingOpenMillis > 0
+    }
+
+    @Test
+    public void testConnectionFailsFast(){
+        4.times { server.enqueue(new MockResponse().setResponseCode(500)) }
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.circuitBreakerRegistry = new CircuitBreakerRegistry(getConfiguration())
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(builder.build())
+
+        4.times {
+            try{
+                hubRequestFactory.createRequest().executeGet()
+                fail('Should have thrown exception')
+            } catch (IntegrationRestException e){
+                assert 500 == e.httpStatusCode
+            }
+        }
+        try{
+            hubRequestFactory.createRequest().executeGet()
+            fail('Should have thrown exception')
+        } catch (CircuitBreakerOpenException e){
+            assert e.host.endsWith(":${server.port}")
+        }
+        assert 4 == server.requestCount
+    }
+
+    @Test
+    public void testUncheckedFailureSettlesHalfOpenPermission(){
+        4.times { server.enqueue(new MockResponse().setResponseCode(500)) }
+        2.times { server.enqueue(new MockResponse().setResponseCode(200)) }
+        boolean explode = false
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry(getConfiguration())
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.circuitBreakerRegistry = registry
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        RestConnection restConnection = builder.build()
+        restConnection.builder.addInterceptor({ chain ->
+            if (explode) {
+                throw new IllegalStateException('boom')
+            }
+            chain.proceed(chain.request())
+        } as Interceptor)
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(restConnection)
+
+        4.times {
+            try{
+                hubRequestFactory.createRequest().executeGet()
+                fail('Should have thrown exception')
+            } catch (IntegrationRestException e){
+                assert 500 == e.httpStatusCode
+            }
+        }
+        Thread.sleep(60)
+        explode = true
+        2.times {
+            try{
+                hubRequestFactory.createRequest().executeGet()
+                fail('Should have thrown exception')
+            } catch (IllegalStateException e){
+                assert 'boom' == e.message
+            }
+        }
+        CircuitBreaker circuitBreaker = registry.getCircuitBreaker(server.url("/"))
+        assert CircuitBreakerState.OPEN == circuitBreaker.state
+
+        Thread.sleep(60)
+        explode = false
+        2.times { hubRequestFactory.createRequest().executeGet().close() }
+        assert CircuitBreakerState.CLOSED == circuitBreaker.state
+    }
+}
@@ -23,6 +23,10 @@
  */
 package com.blackducksoftware.integration.hub
 
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
 import org.junit.After
 import org.junit.Before
 import org.junit.Test
@@ -125,4 +129,50 @@ class CredentialsRestConnectionTest {
             assert 404 == e.httpStatusCode
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentAsyncUnauthorizedReconnectsOnce(){
+        final AtomicInteger logins = new AtomicInteger()
+        final Dispatcher dispatcher = new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        if (request.path.contains('j_spring_security_check')) {
+                            return getSuccessResponse().addHeader('Set-Cookie', "session=${logins.incrementAndGet()}")
+                        }
+                        // only the session from the second login is accepted
+                        String cookie = request.getHeader('Cookie')
+                        (cookie != null && cookie.contains('session=2')) ? getSuccessResponse() : getUnauthorizedResponse()
+                    }
+                };
+        RestConnection restConnection = getRestConnection(getSuccessResponse())
+        server.setDispatcher(dispatcher)
+        restConnection.connect()
+        assert 1 == logins.get()
+
+        List<CompletableFuture> futures = (1..5).collect{
+            restConnection.createResponseAsync(restConnection.createGetRequest(restConnection.createHttpUrl()))
+        }
+        futures.each{ future -> future.get(10, TimeUnit.SECONDS).withCloseable{ assert 200 == it.code } }
+        assert 2 == logins.get()
+    }
+
+    @Test
+    public void testAsyncRequestDoesNotWaitForLogin(){
+        final Dispatcher dispatcher = new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        if (request.path.contains('j_spring_security_check')) {
+                            Thread.sleep(1000)
+                        }
+                        getSuccessResponse()
+                    }
+                };
+        RestConnection restConnection = getRestConnection(getSuccessResponse())
+        server.setDispatcher(dispatcher)
+
+        long start = System.currentTimeMillis()
+        CompletableFuture future = restConnection.createResponseAsync(restConnection.createGetRequest(restConnection.createHttpUrl()))
+        assert System.currentTimeMillis() - start < 1000
+        future.get(10, TimeUnit.SECONDS).withCloseable{ assert 200 == it.code }
+    }
+}
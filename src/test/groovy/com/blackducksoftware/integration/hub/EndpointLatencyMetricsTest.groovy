@@ -0,0 +1,126 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException
+import com.blackducksoftware.integration.hub.rest.metrics.EndpointLatencyMetrics
+import com.blackducksoftware.integration.hub.rest.metrics.EndpointTemplate
+import com.blackducksoftware.integration.hub.rest.metrics.LatencyHistogram
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.HttpUrl
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+
+class EndpointLatencyMetricsTest {
+    private final MockWebServer server = new MockWebServer();
+
+    @Before public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void testEndpointTemplate(){
+        assert '/api/projects/{id}/versions/{id}/components?limit&offset&q' == EndpointTemplate.fromUrl(HttpUrl.parse('https://hub.example.com/api/projects/0d5b4d96-7e5c-4a3a-9d2b-3c1e6ad64f6e/versions/12/components?q=name:a&offset=20&limit=10'))
+        assert '/api/scans/{id}' == EndpointTemplate.fromUrl(HttpUrl.parse('https://hub.example.com/api/scans/da39a3ee5e6b4b0d3255bfef95601890afd80709'))
+        assert '/api/projects' == EndpointTemplate.fromUrl(HttpUrl.parse('https://hub.example.com/api/projects/'))
+        assert '/' == EndpointTemplate.fromUrl(HttpUrl.parse('https://hub.example.com'))
+        assert !EndpointTemplate.isId('v1')
+    }
+
+    @Test
+    public void testHistogramPercentiles(){
+        LatencyHistogram histogram = new LatencyHistogram()
+        assert 0 == histogram.getPercentile(99, TimeUnit.MILLISECONDS)
+        (1..1000).each{ histogram.record(it, TimeUnit.MILLISECONDS) }
+        assert 1000 == histogram.count
+        assert Math.abs(500 - histogram.getPercentile(50, TimeUnit.MILLISECONDS)) <= 15
+        assert Math.abs(950 - histogram.getPercentile(95, TimeUnit.MILLISECONDS)) <= 30
+        assert Math.abs(990 - histogram.getPercentile(99, TimeUnit.MILLISECONDS)) <= 30
+        assert 1000 == histogram.getPercentile(100, TimeUnit.MILLISECONDS)
+        assert 1000 == histogram.getMax(TimeUnit.MILLISECONDS)
+        assert 500 == histogram.getMean(TimeUnit.MILLISECONDS)
+
+        histogram.reset()
+        assert 0 == histogram.count
+        assert 0 == histogram.getMax(TimeUnit.MILLISECONDS)
+    }
+
+    @Test
+    public void testConcurrentRecording(){
+        LatencyHistogram histogram = new LatencyHistogram()
+        ExecutorService executor = Executors.newFixedThreadPool(8)
+        8.times{ executor.submit{ 10000.times{ histogram.record(it % 100, TimeUnit.MICROSECONDS) } } }
+        executor.shutdown()
+        assert executor.awaitTermination(30, TimeUnit.SECONDS)
+        assert 80000 == histogram.count
+        assert 99 == histogram.getMax(TimeUnit.MICROSECONDS)
+    }
+
+    @Test
+    public void testMetricsPerEndpoint(){
+        EndpointLatencyMetrics metrics = new EndpointLatencyMetrics()
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.metricsListener = metrics
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(builder.build())
+
+        server.enqueue(new MockResponse().setResponseCode(200))
+        server.enqueue(new MockResponse().setResponseCode(200))
+        server.enqueue(new MockResponse().setResponseCode(404))
+        hubRequestFactory.createPagedRequest(10, ['api', 'projects', '1', 'versions']).executeGet().close()
+        hubRequestFactory.createPagedRequest(10, ['api', 'projects', '2', 'versions']).executeGet().close()
+        try{
+            hubRequestFactory.createRequest(['api', 'projects', '3']).executeGet()
+            fail('Should have thrown exception')
+        } catch (IntegrationRestException e){
+            assert 404 == e.httpStatusCode
+        }
+
+        assert 2 == metrics.getHistogram('GET', '/api/projects/{id}/versions?limit&offset', 200).count
+        assert 1 == metrics.getHistogram('GET', '/api/projects/{id}', 404).count
+        assert 2 == metrics.histograms.size()
+
+        metrics.reset()
+        assert metrics.histograms.isEmpty()
+    }
+}
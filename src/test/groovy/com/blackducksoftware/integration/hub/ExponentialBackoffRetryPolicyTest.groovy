@@ -0,0 +1,153 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+import java.time.format.DateTimeFormatter
+import java.util.concurrent.TimeUnit
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubRequest
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.RestConnection
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException
+import com.blackducksoftware.integration.hub.rest.retry.ExponentialBackoffRetryPolicy
+import com.blackducksoftware.integration.hub.rest.retry.RetryPolicy
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+
+class ExponentialBackoffRetryPolicyTest {
+    private final MockWebServer server = new MockWebServer();
+
+    @Before public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private RestConnection getRestConnection(RetryPolicy retryPolicy){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.TRACE)
+        builder.baseUrl = server.url("/").url()
+        builder.retryPolicy = retryPolicy
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        builder.build()
+    }
+
+    private Response createResponse(Request request, int code, String retryAfter){
+        Response.Builder builder = new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(code).message('test')
+        if (retryAfter) {
+            builder.header('Retry-After', retryAfter)
+        }
+        builder.build()
+    }
+
+    @Test
+    public void testRetryDecisions(){
+        ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(3, 100, 1000, 10000, TimeUnit.MILLISECONDS)
+        Request get = new Request.Builder().url(server.url('/')).get().build()
+        Request post = new Request.Builder().url(server.url('/')).post(okhttp3.RequestBody.create(null, 'body')).build()
+
+        long delay = policy.getRetryDelay(get, createResponse(get, 503, null), null, 1, 0)
+        assert delay >= 0 && delay <= 100
+        delay = policy.getRetryDelay(get, null, new IOException('reset'), 2, 0)
+        assert delay >= 0 && delay <= 200
+        assert -1 == policy.getRetryDelay(get, createResponse(get, 503, null), null, 3, 0)
+        assert -1 == policy.getRetryDelay(get, createResponse(get, 404, null), null, 1, 0)
+        assert -1 == policy.getRetryDelay(post, createResponse(post, 503, null), null, 1, 0)
+        assert -1 == policy.getRetryDelay(get, createResponse(get, 503, null), null, 1, 10001)
+
+        ExponentialBackoffRetryPolicy nonIdempotent = new ExponentialBackoffRetryPolicy(3, 100, 1000, 10000, TimeUnit.MILLISECONDS, true)
+        assert nonIdempotent.getRetryDelay(post, createResponse(post, 503, null), null, 1, 0) >= 0
+    }
+
+    @Test
+    public void testRetryAfter(){
+        ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(3, 100, 1000, 10000, TimeUnit.MILLISECONDS)
+        Request get = new Request.Builder().url(server.url('/')).get().build()
+        assert 2000 == policy.getRetryDelay(get, createResponse(get, 429, '2'), null, 1, 0)
+        assert -1 == policy.getRetryDelay(get, createResponse(get, 429, '20'), null, 1, 0)
+
+        String httpDate = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(5))
+        long delay = policy.parseRetryAfter(httpDate)
+        assert delay > 3000 && delay <= 5000
+        assert -1 == policy.parseRetryAfter('not a date')
+        assert -1 == policy.parseRetryAfter(null)
+    }
+
+    @Test
+    public void testBackoffIsCapped(){
+        ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(100, 100, 1000, 10000, TimeUnit.MILLISECONDS)
+        (1..64).each { assert policy.calculateBackoff(it) <= 1000 }
+    }
+
+    @Test
+    public void testRequestRetried(){
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader('Retry-After', '0'))
+        server.enqueue(new MockResponse().setResponseCode(502))
+        server.enqueue(new MockResponse().setResponseCode(200))
+        RetryPolicy policy = new ExponentialBackoffRetryPolicy(3, 10, 50, 10000, TimeUnit.MILLISECONDS)
+        HubRequest request = new HubRequestFactory(getRestConnection(policy)).createRequest()
+        request.executeGet().withCloseable{ assert 200 == it.code }
+        assert 3 == server.requestCount
+    }
+
+    @Test
+    public void testAsyncRequestRetried(){
+        server.enqueue(new MockResponse().setResponseCode(503))
+        server.enqueue(new MockResponse().setResponseCode(200))
+        RetryPolicy policy = new ExponentialBackoffRetryPolicy(3, 10, 50, 10000, TimeUnit.MILLISECONDS)
+        HubRequest request = new HubRequestFactory(getRestConnection(policy)).createRequest()
+        request.executeGetAsync().get().withCloseable{ assert 200 == it.code }
+        assert 2 == server.requestCount
+    }
+
+    @Test
+    public void testRetriesExhausted(){
+        3.times { server.enqueue(new MockResponse().setResponseCode(503)) }
+        RetryPolicy policy = new ExponentialBackoffRetryPolicy(2, 10, 50, 10000, TimeUnit.MILLISECONDS)
+        HubRequest request = new HubRequestFactory(getRestConnection(policy)).createRequest()
+        try{
+            request.executeGet()
+            fail('Should have thrown exception')
+        } catch (IntegrationRestException e){
+            assert 503 == e.httpStatusCode
+        }
+        assert 2 == server.requestCount
+    }
+}
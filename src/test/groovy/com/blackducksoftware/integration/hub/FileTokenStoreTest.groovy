@@ -0,0 +1,184 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.nio.file.Files
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.api.oauth.OAuthConfiguration
+import com.blackducksoftware.integration.hub.api.oauth.Token
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.rest.oauth.AccessType
+import com.blackducksoftware.integration.hub.rest.oauth.FileTokenStore
+import com.blackducksoftware.integration.hub.rest.oauth.IssuedToken
+import com.blackducksoftware.integration.hub.rest.oauth.TokenManager
+import com.blackducksoftware.integration.hub.rest.oauth.TokenStore
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+
+class FileTokenStoreTest {
+    private final MockWebServer server = new MockWebServer();
+    private File storeDirectory
+
+    @Before public void setUp() throws Exception {
+        server.start();
+        storeDirectory = Files.createTempDirectory('hub-token-store').toFile()
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+        storeDirectory.deleteDir()
+    }
+
+    private IssuedToken createIssuedToken(String accessToken){
+        Token token = new Token()
+        token.accessToken = accessToken
+        token.refreshToken = 'secret-refresh-token'
+        token.tokenType = 'bearer'
+        token.expiresIn = '3600'
+        new IssuedToken(token, System.currentTimeMillis())
+    }
+
+    private File[] getTokenFiles(){
+        storeDirectory.listFiles().findAll{ it.name.endsWith('.token') } as File[]
+    }
+
+    private TokenManager getTokenManager(){
+        OAuthConfiguration oAuthConfig = new OAuthConfiguration()
+        oAuthConfig.clientId = 'ClientId'
+        oAuthConfig.tokenUri = server.url("/token/").toString()
+
+        TokenManager tokenManager = new TokenManager(new PrintStreamIntLogger(System.out, LogLevel.TRACE), 120)
+        tokenManager.setProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        tokenManager.setConfiguration(oAuthConfig)
+        tokenManager.proactiveRefresh = false
+        tokenManager.tokenStore = new FileTokenStore(storeDirectory)
+        tokenManager
+    }
+
+    @Test
+    public void testStoreAndLoad(){
+        FileTokenStore store = new FileTokenStore(storeDirectory)
+        assert null == store.load('key')
+
+        IssuedToken issuedToken = createIssuedToken('secret-access-token')
+        store.store('key', issuedToken)
+        IssuedToken loaded = store.load('key')
+        assert issuedToken.issuedAt == loaded.issuedAt
+        assert issuedToken.expiresAt == loaded.expiresAt
+        assert 'secret-access-token' == loaded.token.accessToken
+        assert 'secret-refresh-token' == loaded.token.refreshToken
+        assert null == store.load('other key')
+
+        assert 1 == getTokenFiles().length
+        File tokenFile = getTokenFiles()[0]
+        assert !tokenFile.name.contains('key')
+        assert !tokenFile.text.contains('secret')
+
+        store.remove('key')
+        assert null == store.load('key')
+        assert 0 == getTokenFiles().length
+    }
+
+    @Test
+    public void testUnreadableFileIsIgnored(){
+        FileTokenStore store = new FileTokenStore(storeDirectory)
+        store.store('key', createIssuedToken('access'))
+        getTokenFiles()[0].text = 'not a token'
+        assert null == store.load('key')
+
+        store.store('key', createIssuedToken('replaced'))
+        assert 'replaced' == store.load('key').token.accessToken
+    }
+
+    @Test
+    public void testGetOrRequest(){
+        FileTokenStore store = new FileTokenStore(storeDirectory)
+        List<IssuedToken> passedToRequest = []
+        TokenStore.TokenRequest tokenRequest = { IssuedToken stored ->
+            passedToRequest.add(stored)
+            createIssuedToken("requested${passedToRequest.size()}")
+        }
+
+        assert 'requested1' == store.getOrRequest('key', { true }, tokenRequest).token.accessToken
+        assert [null] == passedToRequest
+        assert 'requested1' == store.getOrRequest('key', { true }, tokenRequest).token.accessToken
+        assert 1 == passedToRequest.size()
+
+        assert 'requested2' == store.getOrRequest('key', { false }, tokenRequest).token.accessToken
+        assert 'requested1' == passedToRequest[1].token.accessToken
+        assert 'requested2' == store.load('key').token.accessToken
+    }
+
+    @Test
+    public void testConcurrentRequestsAreShared(){
+        AtomicInteger requestCount = new AtomicInteger()
+        TokenStore.TokenRequest tokenRequest = { IssuedToken stored ->
+            Thread.sleep(100)
+            createIssuedToken("requested${requestCount.incrementAndGet()}")
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(5)
+        try{
+            List<Future<IssuedToken>> futures = (1..5).collect{
+                executor.submit({ new FileTokenStore(storeDirectory).getOrRequest('key', { true }, tokenRequest) } as Callable<IssuedToken>)
+            }
+            assert futures.every{ 'requested1' == it.get(10, TimeUnit.SECONDS).token.accessToken }
+            assert 1 == requestCount.get()
+        } finally{
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    public void testTokenManagersShareStoredToken(){
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(getClass().getResource('/ClientToken.json').text))
+        TokenManager first = getTokenManager()
+        Token token = first.getToken(AccessType.CLIENT)
+        assert 1 == server.requestCount
+
+        TokenManager second = getTokenManager()
+        Token stored = second.getToken(AccessType.CLIENT)
+        assert 1 == server.requestCount
+        assert token.accessToken == stored.accessToken
+        assert first.getIssuedToken(AccessType.CLIENT).issuedAt == second.getIssuedToken(AccessType.CLIENT).issuedAt
+
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('{"access_token":"new","token_type":"bearer","expires_in":3600}'))
+        assert 'new' == second.refreshToken(AccessType.CLIENT).accessToken
+        assert 2 == server.requestCount
+        assert 'new' == first.refreshToken(AccessType.CLIENT).accessToken
+        assert 2 == server.requestCount
+    }
+}
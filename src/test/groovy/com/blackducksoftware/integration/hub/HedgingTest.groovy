@@ -0,0 +1,188 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.hedge.HedgingPolicy
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okhttp3.mockwebserver.SocketPolicy
+
+class HedgingTest {
+    private final MockWebServer server = new MockWebServer();
+
+    @Before public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private HubRequestFactory getHubRequestFactory(HedgingPolicy hedgingPolicy){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.hedgingPolicy = hedgingPolicy
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        new HubRequestFactory(builder.build())
+    }
+
+    @Test
+    public void testHedgeDelayFollowsPercentile(){
+        HedgingPolicy policy = new HedgingPolicy(95, 10, 500, TimeUnit.MILLISECONDS, 0.1)
+        assert 500 == policy.getHedgeDelayMillis()
+        (1..100).each { policy.recordLatency(it) }
+        assert 95 == policy.getHedgeDelayMillis()
+
+        HedgingPolicy clamped = new HedgingPolicy(50, 60, 80, TimeUnit.MILLISECONDS, 0.1)
+        (1..100).each { clamped.recordLatency(it) }
+        assert 60 == clamped.getHedgeDelayMillis()
+        (1..100).each { clamped.recordLatency(1000) }
+        assert 80 == clamped.getHedgeDelayMillis()
+    }
+
+    @Test
+    public void testHedgeBudget(){
+        HedgingPolicy policy = new HedgingPolicy(95, 10, 500, TimeUnit.MILLISECONDS, 0.5)
+        assert policy.tryAcquireHedge()
+        assert !policy.tryAcquireHedge()
+        policy.onRequest()
+        assert !policy.tryAcquireHedge()
+        policy.onRequest()
+        assert policy.tryAcquireHedge()
+        assert 2 == policy.getHedgeCount()
+
+        try{
+            new HedgingPolicy(95, 10, 500, TimeUnit.MILLISECONDS, 2)
+            fail('Should have thrown exception')
+        } catch (IllegalArgumentException e){
+        }
+    }
+
+    @Test
+    public void testSlowResponseIsHedged(){
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('slow').setHeadersDelay(5, TimeUnit.SECONDS))
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('fast'))
+        HedgingPolicy policy = new HedgingPolicy(95, 50, 50, TimeUnit.MILLISECONDS, 0.1)
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(policy)
+
+        long start = System.currentTimeMillis()
+        hubRequestFactory.createRequest().executeGet().withCloseable{ assert 'fast' == it.body().string() }
+        assert System.currentTimeMillis() - start < 5000
+        assert 2 == server.requestCount
+        assert 1 == policy.getHedgeCount()
+    }
+
+    @Test
+    public void testAsyncSlowResponseIsHedged(){
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('slow').setHeadersDelay(5, TimeUnit.SECONDS))
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('fast'))
+        HedgingPolicy policy = new HedgingPolicy(95, 50, 50, TimeUnit.MILLISECONDS, 0.1)
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(policy)
+
+        hubRequestFactory.createRequest().executeGetAsync().get(4, TimeUnit.SECONDS).withCloseable{ assert 'fast' == it.body().string() }
+        assert 1 == policy.getHedgeCount()
+    }
+
+    @Test
+    public void testOriginalFailingWhileHedgeSucceeds(){
+        final AtomicLong originalSent = new AtomicLong()
+        server.setDispatcher(new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        long now = System.currentTimeMillis()
+                        if (originalSent.compareAndSet(0, now)) {
+                            // the original fails at about the time the hedge answers
+                            Thread.sleep(150)
+                            return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST)
+                        }
+                        if (now - originalSent.get() < 120) {
+                            return new MockResponse().setResponseCode(200).setBody('hedge').setHeadersDelay(100, TimeUnit.MILLISECONDS)
+                        }
+                        // OkHttp retrying the original on a new connection
+                        new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST)
+                    }
+                });
+        HedgingPolicy policy = new HedgingPolicy(95, 50, 50, TimeUnit.MILLISECONDS, 1)
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(policy)
+
+        10.times {
+            originalSent.set(0)
+            hubRequestFactory.createRequest().executeGet().withCloseable{ assert 'hedge' == it.body().string() }
+        }
+        assert 10 == policy.getHedgeCount()
+    }
+
+    @Test
+    public void testHedgeBudgetCapsDuplicates(){
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('slow').setHeadersDelay(200, TimeUnit.MILLISECONDS))
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('fast'))
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('slow again').setHeadersDelay(200, TimeUnit.MILLISECONDS))
+        HedgingPolicy policy = new HedgingPolicy(95, 50, 50, TimeUnit.MILLISECONDS, 0)
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(policy)
+
+        hubRequestFactory.createRequest().executeGet().withCloseable{ assert 'fast' == it.body().string() }
+        hubRequestFactory.createRequest().executeGet().withCloseable{ assert 'slow again' == it.body().string() }
+        assert 3 == server.requestCount
+        assert 1 == policy.getHedgeCount()
+    }
+
+    @Test
+    public void testHedgedUnauthorizedResponseReconnects(){
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('slow').setHeadersDelay(5, TimeUnit.SECONDS))
+        server.enqueue(new MockResponse().setResponseCode(401))
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('authorized'))
+        HedgingPolicy policy = new HedgingPolicy(95, 50, 50, TimeUnit.MILLISECONDS, 0.1)
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(policy)
+
+        hubRequestFactory.createRequest().executeGet().withCloseable{ assert 'authorized' == it.body().string() }
+        assert 3 == server.requestCount
+    }
+
+    @Test
+    public void testPostIsNotHedged(){
+        server.enqueue(new MockResponse().setResponseCode(200).setBody('slow').setHeadersDelay(200, TimeUnit.MILLISECONDS))
+        HedgingPolicy policy = new HedgingPolicy(95, 10, 10, TimeUnit.MILLISECONDS, 1)
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(policy)
+
+        hubRequestFactory.createRequest().executePost('{}').withCloseable{ assert 'slow' == it.body().string() }
+        assert 1 == server.requestCount
+        assert 0 == policy.getHedgeCount()
+    }
+}
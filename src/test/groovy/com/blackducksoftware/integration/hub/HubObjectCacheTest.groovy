@@ -0,0 +1,182 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.util.concurrent.TimeUnit
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.api.oauth.Token
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubObjectCache
+import com.blackducksoftware.integration.hub.request.HubRequest
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.RestConnection
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+
+class HubObjectCacheTest {
+    private final MockWebServer server = new MockWebServer();
+
+    @Before public void setUp() throws Exception {
+        server.start();
+        final Dispatcher dispatcher = new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        if (request.path.contains('missing')) {
+                            return new MockResponse().setResponseCode(404)
+                        }
+                        if (request.path.contains('slow')) {
+                            Thread.sleep(200)
+                        }
+                        new MockResponse().setResponseCode(200).setBody('{"access_token":"' + request.path + '"}')
+                    }
+                };
+        server.setDispatcher(dispatcher);
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private HubRequestFactory getHubRequestFactory(){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        new HubRequestFactory(builder.build())
+    }
+
+    @Test
+    public void testHitAndMiss(){
+        HubObjectCache cache = new HubObjectCache(1024 * 1024, 1, TimeUnit.HOURS)
+        HubRequestFactory factory = getHubRequestFactory()
+        HubRequest first = factory.createRequest(['api', 'projects']).addQueryParameter('a', '1').addQueryParameter('b', '2')
+        Token token = cache.get(first, Token.class)
+        assert token.accessToken.startsWith('/api/projects')
+
+        HubRequest second = factory.createRequest(['api', 'projects']).addQueryParameter('b', '2').addQueryParameter('a', '1')
+        assert token.is(cache.get(second, Token.class))
+        assert 1 == server.requestCount
+        assert 1 == cache.hitCount
+        assert 1 == cache.missCount
+        assert 1 == cache.size()
+
+        cache.invalidate(second, Token.class)
+        cache.get(second, Token.class)
+        assert 2 == server.requestCount
+    }
+
+    @Test
+    public void testExpiry(){
+        HubObjectCache cache = new HubObjectCache(1024 * 1024, 0, TimeUnit.MILLISECONDS)
+        HubRequestFactory factory = getHubRequestFactory()
+        cache.get(factory.createRequest(['api', 'projects']), Token.class)
+        cache.get(factory.createRequest(['api', 'projects']), Token.class)
+        assert 2 == server.requestCount
+        assert 0 == cache.hitCount
+    }
+
+    @Test
+    public void testNotFoundCaching(){
+        HubObjectCache cache = new HubObjectCache(1024 * 1024, 1, TimeUnit.HOURS)
+        HubRequestFactory factory = getHubRequestFactory()
+        2.times {
+            try{
+                cache.get(factory.createRequest(['api', 'missing']), Token.class)
+                fail('Should have thrown exception')
+            } catch (IntegrationRestException e){
+                assert 404 == e.httpStatusCode
+            }
+        }
+        assert 1 == server.requestCount
+        assert 1 == cache.notFoundHitCount
+    }
+
+    @Test
+    public void testWeightEviction(){
+        HubObjectCache cache = new HubObjectCache(50, 1, TimeUnit.HOURS)
+        HubRequestFactory factory = getHubRequestFactory()
+        cache.get(factory.createRequest(['api', 'first']), Token.class)
+        cache.get(factory.createRequest(['api', 'second']), Token.class)
+        assert 1 == cache.evictionCount
+        assert 1 == cache.size()
+        assert cache.weight <= 50
+
+        cache.get(factory.createRequest(['api', 'second']), Token.class)
+        assert 1 == cache.hitCount
+    }
+
+    @Test
+    public void testNotFoundEntriesAreWeighed(){
+        HubObjectCache cache = new HubObjectCache(2 * HubObjectCache.NOT_FOUND_WEIGHT, 1, TimeUnit.HOURS)
+        HubRequestFactory factory = getHubRequestFactory()
+        3.times { index ->
+            try{
+                cache.get(factory.createRequest(['api', "missing${index}".toString()]), Token.class)
+                fail('Should have thrown exception')
+            } catch (IntegrationRestException e){
+                assert 404 == e.httpStatusCode
+            }
+        }
+        assert 2 == cache.size()
+        assert 1 == cache.evictionCount
+        assert 2 * HubObjectCache.NOT_FOUND_WEIGHT == cache.weight
+    }
+
+    @Test
+    public void testExpiredEntriesPrunedOnPut(){
+        HubObjectCache cache = new HubObjectCache(1024 * 1024, 50, TimeUnit.MILLISECONDS)
+        HubRequestFactory factory = getHubRequestFactory()
+        cache.get(factory.createRequest(['api', 'first']), Token.class)
+        Thread.sleep(1100)
+        cache.get(factory.createRequest(['api', 'second']), Token.class)
+        assert 1 == cache.size()
+        assert 0 == cache.evictionCount
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneRequest(){
+        HubObjectCache cache = new HubObjectCache(1024 * 1024, 1, TimeUnit.HOURS)
+        HubRequestFactory factory = getHubRequestFactory()
+        List<Token> tokens = Collections.synchronizedList(new ArrayList<Token>())
+        List<Thread> threads = (1..5).collect {
+            Thread.start { tokens.add(cache.get(factory.createRequest(['api', 'slow']), Token.class)) }
+        }
+        threads.each { it.join() }
+        assert 5 == tokens.size()
+        assert 1 == server.requestCount
+        assert tokens.every { it.is(tokens[0]) }
+        assert 1 == cache.missCount
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.util.concurrent.TimeUnit
+import java.util.stream.Collectors
+import java.util.stream.Stream
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.api.oauth.Token
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubPagedIterator
+import com.blackducksoftware.integration.hub.request.HubPagedRequest
+import com.blackducksoftware.integration.hub.request.HubPrefetchingIterator
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException
+import com.blackducksoftware.integration.hub.rest.exception.UncheckedIntegrationException
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+
+class HubPagedIteratorTest {
+    private final MockWebServer server = new MockWebServer();
+
+    @Before public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private Dispatcher createPageDispatcher(int totalItems, boolean reportTotalCount){
+        new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        int offset = Integer.parseInt(request.requestUrl.queryParameter('offset'))
+                        int limit = Integer.parseInt(request.requestUrl.queryParameter('limit'))
+                        List<String> items = []
+                        for (int i = offset; i < Math.min(offset + limit, totalItems); i++) {
+                            items.add("{\"access_token\":\"${i}\"}")
+                        }
+                        String totalCount = reportTotalCount ? "\"totalCount\":${totalItems}," : ''
+                        new MockResponse().setResponseCode(200).setBody("{${totalCount}\"items\":[${items.join(',')}]}")
+                    }
+                }
+    }
+
+    private HubRequestFactory getHubRequestFactory(int totalItems, boolean reportTotalCount){
+        Dispatcher dispatcher = createPageDispatcher(totalItems, reportTotalCount)
+        server.setDispatcher(dispatcher);
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        new HubRequestFactory(builder.build())
+    }
+
+    @Test
+    public void testIteratesAllPages(){
+        HubPagedRequest request = getHubRequestFactory(25, true).createPagedRequest(10, ['api', 'projects'])
+        HubPagedIterator<Token> iterator = request.iterate(Token.class).iterator()
+        List<String> tokens = iterator.collect{ it.accessToken }
+        assert (0..24).collect{ String.valueOf(it) } == tokens
+        assert 25 == iterator.totalCount
+        assert 3 == iterator.pageCount
+        assert 3 == server.requestCount
+        assert 0 == request.offset
+    }
+
+    @Test
+    public void testStopsAtTotalCountOnFullPage(){
+        HubPagedRequest request = getHubRequestFactory(20, true).createPagedRequest(10, ['api', 'projects'])
+        assert 20 == request.iterate(Token.class).collect().size()
+        assert 2 == server.requestCount
+    }
+
+    @Test
+    public void testStopsAtShortPageWithoutTotalCount(){
+        HubPagedRequest request = getHubRequestFactory(15, false).createPagedRequest(10, ['api', 'projects'])
+        assert 15 == request.iterate(Token.class).collect().size()
+        assert 2 == server.requestCount
+    }
+
+    @Test
+    public void testStartsAtOffset(){
+        HubPagedRequest request = getHubRequestFactory(25, true).createPagedRequest(10, ['api', 'projects'])
+        request.offset = 20
+        assert ['20', '21', '22', '23', '24'] == request.iterate(Token.class).collect{ it.accessToken }
+        assert 1 == server.requestCount
+    }
+
+    @Test
+    public void testEarlyTerminationDoesNotFetchRemainingPages(){
+        HubPagedRequest request = getHubRequestFactory(100, true).createPagedRequest(10, ['api', 'projects'])
+        Stream<Token> stream = request.stream(Token.class)
+        stream.withCloseable{
+            List<String> tokens = it.limit(12).map{ it.accessToken }.collect(Collectors.toList())
+            assert 12 == tokens.size()
+        }
+        assert 2 == server.requestCount
+    }
+
+    @Test
+    public void testNoItems(){
+        HubPagedRequest request = getHubRequestFactory(0, true).createPagedRequest(10, ['api', 'projects'])
+        assert !request.iterate(Token.class).iterator().hasNext()
+        assert 1 == server.requestCount
+    }
+
+    @Test
+    public void testPageFailure(){
+        server.setDispatcher(new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        new MockResponse().setResponseCode(500)
+                    }
+                })
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        HubPagedRequest request = new HubRequestFactory(builder.build()).createPagedRequest(10, ['api', 'projects'])
+        try{
+            request.iterate(Token.class).iterator().hasNext()
+            fail('Should have thrown exception')
+        } catch (UncheckedIntegrationException e){
+            assert e.cause instanceof IntegrationRestException
+        }
+    }
+
+    @Test
+    public void testFetchAllInOrder(){
+        HubPagedRequest request = getHubRequestFactory(95, true).createPagedRequest(10, ['api', 'projects'])
+        List<Token> tokens = request.fetchAll(Token.class, 4)
+        assert (0..94).collect{ String.valueOf(it) } == tokens.collect{ it.accessToken }
+        assert 10 == server.requestCount
+    }
+
+    @Test
+    public void testFetchAllUnordered(){
+        HubPagedRequest request = getHubRequestFactory(95, true).createPagedRequest(10, ['api', 'projects'])
+        List<Token> tokens = request.fetchAll(Token.class, 3, false)
+        assert (0..94).collect{ String.valueOf(it) } as Set == tokens.collect{ it.accessToken } as Set
+        assert 95 == tokens.size()
+    }
+
+    @Test
+    public void testFetchAllWithoutTotalCount(){
+        HubPagedRequest request = getHubRequestFactory(35, false).createPagedRequest(10, ['api', 'projects'])
+        List<Token> tokens = request.fetchAll(Token.class, 4)
+        assert (0..34).collect{ String.valueOf(it) } == tokens.collect{ it.accessToken }
+        assert 4 == server.requestCount
+    }
+
+    @Test
+    public void testFetchAllPageFailure(){
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(95, true)
+        Dispatcher pages = createPageDispatcher(95, true)
+        server.setDispatcher(new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        if ('50' == request.requestUrl.queryParameter('offset')) {
+                            return new MockResponse().setResponseCode(500)
+                        }
+                        pages.dispatch(request)
+                    }
+                })
+        HubPagedRequest request = hubRequestFactory.createPagedRequest(10, ['api', 'projects'])
+        try{
+            request.fetchAll(Token.class, 4)
+            fail('Should have thrown exception')
+        } catch (IntegrationRestException e){
+            assert 500 == e.httpStatusCode
+        }
+    }
+
+    @Test
+    public void testFetchAllPageFailureCancelsPagesInFlight(){
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(95, true)
+        Dispatcher pages = createPageDispatcher(95, true)
+        server.setDispatcher(new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        String offset = request.requestUrl.queryParameter('offset')
+                        if ('10' == offset) {
+                            // fails once the other pages are in flight
+                            return new MockResponse().setResponseCode(500).setHeadersDelay(300, TimeUnit.MILLISECONDS)
+                        }
+                        MockResponse page = pages.dispatch(request)
+                        '0' == offset ? page : page.setHeadersDelay(2, TimeUnit.SECONDS)
+                    }
+                })
+        HubPagedRequest request = hubRequestFactory.createPagedRequest(10, ['api', 'projects'])
+        try{
+            request.fetchAll(Token.class, 4)
+            fail('Should have thrown exception')
+        } catch (IntegrationRestException e){
+            assert 500 == e.httpStatusCode
+        }
+        okhttp3.Dispatcher dispatcher = request.restConnection.builder.build().dispatcher()
+        long deadline = System.currentTimeMillis() + 1000
+        while (dispatcher.runningCallsCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        assert 0 == dispatcher.runningCallsCount()
+        assert server.requestCount <= 5
+    }
+
+    @Test
+    public void testPrefetchIteratesAllPages(){
+        HubPagedRequest request = getHubRequestFactory(45, true).createPagedRequest(10, ['api', 'projects'])
+        HubPrefetchingIterator<Token> iterator = request.prefetch(Token.class, 2)
+        iterator.withCloseable{
+            assert (0..44).collect{ String.valueOf(it) } == iterator.collect{ it.accessToken }
+        }
+        assert 45 == iterator.totalCount
+        assert 5 == iterator.pageCount
+        assert 5 == server.requestCount
+    }
+
+    @Test
+    public void testPrefetchKeepsPagesInFlight(){
+        HubPagedRequest request = getHubRequestFactory(100, true).createPagedRequest(10, ['api', 'projects'])
+        HubPrefetchingIterator<Token> iterator = request.prefetch(Token.class, 3)
+        iterator.withCloseable{
+            assert '0' == iterator.next().accessToken
+            assert 3 == iterator.pendingPageCount
+        }
+        assert 0 == iterator.pendingPageCount
+        assert !iterator.hasNext()
+        assert server.requestCount <= 4
+    }
+
+    @Test
+    public void testPrefetchWithoutTotalCount(){
+        HubPagedRequest request = getHubRequestFactory(25, false).createPagedRequest(10, ['api', 'projects'])
+        HubPrefetchingIterator<Token> iterator = request.prefetch(Token.class, 2)
+        iterator.withCloseable{
+            assert (0..24).collect{ String.valueOf(it) } == iterator.collect{ it.accessToken }
+        }
+    }
+
+    @Test
+    public void testPrefetchWithoutReadAhead(){
+        HubPagedRequest request = getHubRequestFactory(25, true).createPagedRequest(10, ['api', 'projects'])
+        HubPrefetchingIterator<Token> iterator = request.prefetch(Token.class, 0)
+        iterator.withCloseable{
+            assert 25 == iterator.collect().size()
+        }
+        assert 3 == server.requestCount
+    }
+}
@@ -23,11 +23,16 @@
  */
 package com.blackducksoftware.integration.hub
 
+import java.util.concurrent.ExecutionException
+
 import org.junit.After
 import org.junit.Before
 import org.junit.Test
 
+import com.blackducksoftware.integration.exception.IntegrationException
+import com.blackducksoftware.integration.hub.api.oauth.Token
 import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubItemIterator
 import com.blackducksoftware.integration.hub.request.HubPagedRequest
 import com.blackducksoftware.integration.hub.request.HubRequest
 import com.blackducksoftware.integration.hub.request.HubRequestFactory
@@ -168,4 +173,98 @@ class HubRequestExecutionTest {
             assert 405 == e.httpStatusCode
         }
     }
+
+    @Test
+    public void testExecuteGetAsync(){
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(getRestConnection())
+        HubRequest request = hubRequestFactory.createRequest()
+        request.executeGetAsync().get().withCloseable{ assert 200 == it.code }
+        request.executeGetAsync("text/plain").get().withCloseable{ assert 200 == it.code }
+    }
+
+    @Test
+    public void testExecutePostAndPutAsync(){
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(getRestConnection())
+        HubRequest request = hubRequestFactory.createRequest()
+        request.executePostAsync("hello").get().withCloseable{ assert 200 == it.code }
+        request.executeEncodedFormPostAsync([name:"hello"]).get().withCloseable{ assert 200 == it.code }
+        request.executePutAsync("text/plain", "hello").get().withCloseable{ assert 200 == it.code }
+        request.executeEncodedFormPutAsync([name:"hello"]).get().withCloseable{ assert 200 == it.code }
+    }
+
+    @Test
+    public void testExecuteDeleteAsyncNotAllowed(){
+        MockResponse response = new MockResponse().setResponseCode(405)
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(getRestConnection(response))
+        HubRequest request = hubRequestFactory.createRequest()
+        try{
+            request.executeDeleteAsync().get()
+            fail('Should have thrown exception')
+        } catch (ExecutionException e){
+            assert e.cause instanceof IntegrationRestException
+            assert 405 == e.cause.httpStatusCode
+        }
+    }
+
+    @Test
+    public void testExecuteGetAs(){
+        MockResponse response = new MockResponse().setResponseCode(200).setBody('{"access_token":"abc","expires_in":"7199","scope":"read write"}')
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(getRestConnection(response))
+        HubRequest request = hubRequestFactory.createRequest()
+        Token token = request.executeGetAs(Token.class)
+        assert 'abc' == token.accessToken
+        assert '7199' == token.expiresIn
+        token = request.executePostAs('{}', Token.class)
+        assert 'read write' == token.scope
+    }
+
+    @Test
+    public void testExecuteGetAsMalformed(){
+        MockResponse response = new MockResponse().setResponseCode(200).setBody('{"access_token":')
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(getRestConnection(response))
+        HubRequest request = hubRequestFactory.createRequest()
+        try{
+            request.executeGetAs(Token.class)
+            fail('Should have thrown exception')
+        } catch (IntegrationException e){
+        }
+    }
+
+    @Test
+    public void testExecuteGetItems(){
+        MockResponse response = new MockResponse().setResponseCode(200).setBody('{"totalCount":3,"items":[{"access_token":"a"},{"access_token":"b"},{"access_token":"c"}],"_meta":{"links":[]}}')
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(getRestConnection(response))
+        HubPagedRequest request = hubRequestFactory.createPagedRequest(3, [])
+        HubItemIterator<Token> iterator = request.executeGetItems(Token.class)
+        iterator.withCloseable{
+            assert 3 == iterator.totalCount
+            assert ['a', 'b', 'c'] == iterator.collect{ it.accessToken }
+            assert 3 == iterator.itemCount
+            assert !iterator.hasNext()
+        }
+    }
+
+    @Test
+    public void testExecuteGetItemsTotalCountAfterItems(){
+        MockResponse response = new MockResponse().setResponseCode(200).setBody('{"items":[{"access_token":"a"}],"totalCount":1}')
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(getRestConnection(response))
+        HubRequest request = hubRequestFactory.createRequest()
+        request.executeGetItems(Token.class).withCloseable{
+            assert -1 == it.totalCount
+            assert 'a' == it.next().accessToken
+            assert !it.hasNext()
+            assert 1 == it.totalCount
+        }
+    }
+
+    @Test
+    public void testExecuteGetItemsWithoutItems(){
+        MockResponse response = new MockResponse().setResponseCode(200).setBody('{"totalCount":0}')
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(getRestConnection(response))
+        HubRequest request = hubRequestFactory.createRequest()
+        request.executeGetItems(Token.class).withCloseable{
+            assert !it.hasNext()
+            assert 0 == it.totalCount
+        }
+    }
 }
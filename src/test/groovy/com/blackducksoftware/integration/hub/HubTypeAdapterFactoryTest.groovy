@@ -0,0 +1,108 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.api.oauth.Token
+import com.blackducksoftware.integration.hub.gson.HubTypeAdapterFactory
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.rest.RestConnection
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.google.gson.Gson
+import com.google.gson.GsonBuilder
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonWriter
+
+class HubTypeAdapterFactoryTest {
+    static class Version {
+        String name
+    }
+
+    static class VersionTypeAdapter extends TypeAdapter<Version> {
+        @Override
+        public void write(JsonWriter out, Version value) throws IOException {
+            out.beginObject().name('versionName').value(value.name).endObject()
+        }
+
+        @Override
+        public Version read(JsonReader reader) throws IOException {
+            Version version = new Version()
+            reader.beginObject()
+            while (reader.hasNext()) {
+                if ('versionName' == reader.nextName()) {
+                    version.name = reader.nextString()
+                } else {
+                    reader.skipValue()
+                }
+            }
+            reader.endObject()
+            version
+        }
+    }
+
+    private RestConnection getRestConnection(){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.baseUrl = 'http://www.google.com'
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        builder.applyTypeAdapter(Version.class, new VersionTypeAdapter())
+        builder.build()
+    }
+
+    @Test
+    public void testTokenMatchesReflectiveBinding(){
+        String json = '{"access_token":"access","refresh_token":"refresh","token_type":"bearer","expires_in":7199,"scope":"read write","jti":"id","unknown":{"nested":[1,2]}}'
+        Gson reflective = new Gson()
+        Gson generated = new GsonBuilder().registerTypeAdapterFactory(new HubTypeAdapterFactory()).create()
+        Token expected = reflective.fromJson(json, Token.class)
+        Token token = generated.fromJson(json, Token.class)
+        ['accessToken', 'refreshToken', 'tokenType', 'expiresIn', 'scope', 'jti'].each{ assert expected[it] == token[it] }
+        assert '7199' == token.expiresIn
+        assert reflective.toJson(expected) == generated.toJson(token)
+        assert null == generated.fromJson('null', Token.class)
+    }
+
+    @Test
+    public void testTokenWithMissingFields(){
+        Gson generated = new GsonBuilder().registerTypeAdapterFactory(new HubTypeAdapterFactory()).create()
+        Token token = generated.fromJson('{"access_token":"access","refresh_token":null}', Token.class)
+        assert 'access' == token.accessToken
+        assert null == token.refreshToken
+        assert '{"access_token":"access"}' == generated.toJson(token)
+    }
+
+    @Test
+    public void testConnectionUsesRegisteredAdapters(){
+        RestConnection restConnection = getRestConnection()
+        assert restConnection.typeAdapterFactory.hasTypeAdapter(Token.class)
+        assert restConnection.typeAdapterFactory.hasTypeAdapter(Version.class)
+        Version version = restConnection.gson.fromJson('{"versionName":"1.0","other":true}', Version.class)
+        assert '1.0' == version.name
+        assert '{"versionName":"1.0"}' == restConnection.gson.toJson(version)
+        List<Version> versions = restConnection.gson.fromJson('[{"versionName":"1.0"},null]', new com.google.gson.reflect.TypeToken<List<Version>>(){}.getType())
+        assert '1.0' == versions[0].name
+        assert null == versions[1]
+    }
+}
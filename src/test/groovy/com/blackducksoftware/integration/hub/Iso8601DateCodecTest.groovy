@@ -0,0 +1,115 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.text.ParseException
+import java.time.Instant
+import java.time.OffsetDateTime
+import java.time.ZoneOffset
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.gson.Iso8601DateCodec
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.rest.RestConnection
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.google.gson.Gson
+import com.google.gson.JsonSyntaxException
+
+class Iso8601DateCodecTest {
+    static class Notification {
+        Date createdAt
+        Instant updatedAt
+        OffsetDateTime scannedAt
+    }
+
+    private Gson getGson(){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.baseUrl = 'http://www.google.com'
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        RestConnection restConnection = builder.build()
+        restConnection.gson
+    }
+
+    @Test
+    public void testParsesOffsetsAndFractions(){
+        long expected = Instant.parse('2017-03-02T03:35:23.456Z').toEpochMilli()
+        assert expected == Iso8601DateCodec.parseDate('2017-03-02T03:35:23.456Z').time
+        assert expected == Iso8601DateCodec.parseDate('2017-03-02T04:35:23.456+01').time
+        assert expected == Iso8601DateCodec.parseDate('2017-03-02T04:35:23.456+0100').time
+        assert expected == Iso8601DateCodec.parseDate('2017-03-02T04:35:23.456789+01:00').time
+        assert '2017-03-02T03:35:23.000Z' == Iso8601DateCodec.formatDate(Iso8601DateCodec.parseDate('2017-03-02T03:35:23Z'))
+    }
+
+    @Test
+    public void testInvalidDate(){
+        try{
+            RestConnection.parseDateString('03/02/2017')
+            fail('Should have thrown exception')
+        } catch (ParseException e){
+        }
+    }
+
+    @Test
+    public void testGsonDateFields(){
+        Gson gson = getGson()
+        Notification notification = gson.fromJson('{"createdAt":"2017-03-02T03:35:23.456Z","updatedAt":"2017-03-02T04:35:23.456+01:00","scannedAt":"2017-03-02T04:35:23.456+01:00"}', Notification.class)
+        assert Instant.parse('2017-03-02T03:35:23.456Z') == notification.createdAt.toInstant()
+        assert Instant.parse('2017-03-02T03:35:23.456Z') == notification.updatedAt
+        assert ZoneOffset.ofHours(1) == notification.scannedAt.offset
+
+        String json = gson.toJson(notification)
+        assert json.contains('"createdAt":"2017-03-02T03:35:23.456Z"')
+        assert json.contains('"updatedAt":"2017-03-02T03:35:23.456Z"')
+        assert json.contains('"scannedAt":"2017-03-02T04:35:23.456+01"')
+        assert null == gson.fromJson('{"createdAt":null}', Notification.class).createdAt
+
+        try{
+            gson.fromJson('{"createdAt":"yesterday"}', Notification.class)
+            fail('Should have thrown exception')
+        } catch (JsonSyntaxException e){
+        }
+    }
+
+    @Test
+    public void testConcurrentUse(){
+        ExecutorService executor = Executors.newFixedThreadPool(8)
+        try{
+            List<Future<Boolean>> results = (0..<200).collect{ int i ->
+                executor.submit({
+                    // the milliseconds stay between 456 and 655, so Instant.toString always prints all three digits
+                    String dateString = Instant.ofEpochMilli(1488425723456L + i * 1001L).toString()
+                    dateString == RestConnection.formatDate(RestConnection.parseDateString(dateString))
+                } as Callable<Boolean>)
+            }
+            assert results.every{ it.get() }
+        } finally{
+            executor.shutdown()
+        }
+    }
+}
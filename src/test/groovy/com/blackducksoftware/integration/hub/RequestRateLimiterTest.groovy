@@ -0,0 +1,128 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.exception.RateLimitExceededException
+import com.blackducksoftware.integration.hub.rest.ratelimit.RequestRateLimiter
+import com.blackducksoftware.integration.hub.rest.ratelimit.TokenBucket
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.Request
+import okhttp3.RequestBody
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+
+class RequestRateLimiterTest {
+    private final MockWebServer server = new MockWebServer();
+
+    @Before public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private HubRequestFactory getHubRequestFactory(RequestRateLimiter rateLimiter){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.rateLimiter = rateLimiter
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        new HubRequestFactory(builder.build())
+    }
+
+    @Test
+    public void testBurstThenRate(){
+        TokenBucket bucket = new TokenBucket(10, 2)
+        assert bucket.tryAcquire()
+        assert bucket.tryAcquire()
+        assert !bucket.tryAcquire()
+
+        long start = System.nanoTime()
+        bucket.acquire()
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        assert waitedMillis >= 50 && waitedMillis < 1000
+        assert !bucket.tryAcquire(1, TimeUnit.MILLISECONDS)
+        assert bucket.tryAcquire(1, TimeUnit.SECONDS)
+    }
+
+    @Test
+    public void testSeparateReadAndWriteBuckets(){
+        TokenBucket readBucket = new TokenBucket(1, 1)
+        TokenBucket writeBucket = new TokenBucket(1, 1)
+        RequestRateLimiter rateLimiter = new RequestRateLimiter(readBucket, writeBucket, 0, TimeUnit.MILLISECONDS)
+        Request get = new Request.Builder().url(server.url('/')).get().build()
+        Request post = new Request.Builder().url(server.url('/')).post(RequestBody.create(null, 'body')).build()
+        assert readBucket.is(rateLimiter.getBucket(get))
+        assert writeBucket.is(rateLimiter.getBucket(post))
+        assert 0 == rateLimiter.reserve(get)
+        assert 0 == rateLimiter.reserve(post)
+        assert -1 == rateLimiter.reserve(get)
+    }
+
+    @Test
+    public void testNonBlockingLimiterFailsFast(){
+        server.enqueue(new MockResponse().setResponseCode(200))
+        RequestRateLimiter rateLimiter = new RequestRateLimiter(new TokenBucket(0.1, 1), 0, TimeUnit.MILLISECONDS)
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(rateLimiter)
+        hubRequestFactory.createRequest().executeGet().withCloseable{ assert 200 == it.code }
+        try{
+            hubRequestFactory.createRequest().executeGet()
+            fail('Should have thrown exception')
+        } catch (RateLimitExceededException e){
+        }
+        try{
+            hubRequestFactory.createRequest().executeGetAsync().get()
+            fail('Should have thrown exception')
+        } catch (ExecutionException e){
+            assert e.cause instanceof RateLimitExceededException
+        }
+        assert 1 == server.requestCount
+    }
+
+    @Test
+    public void testBlockingLimiterWaits(){
+        3.times { server.enqueue(new MockResponse().setResponseCode(200)) }
+        RequestRateLimiter rateLimiter = new RequestRateLimiter(new TokenBucket(20, 1), 1, TimeUnit.SECONDS)
+        HubRequestFactory hubRequestFactory = getHubRequestFactory(rateLimiter)
+        long start = System.nanoTime()
+        hubRequestFactory.createRequest().executeGet().withCloseable{ assert 200 == it.code }
+        hubRequestFactory.createRequest().executeGet().withCloseable{ assert 200 == it.code }
+        hubRequestFactory.createRequest().executeGetAsync().get().withCloseable{ assert 200 == it.code }
+        assert TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 90
+        assert 3 == server.requestCount
+    }
+}
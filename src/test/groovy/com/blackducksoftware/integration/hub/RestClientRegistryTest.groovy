@@ -0,0 +1,115 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.proxy.ProxyInfoBuilder
+import com.blackducksoftware.integration.hub.rest.RestClientRegistry
+import com.blackducksoftware.integration.hub.rest.RestConnection
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.Dispatcher
+import okhttp3.OkHttpClient
+
+class RestClientRegistryTest {
+
+    private RestConnection getRestConnection(String baseUrl, ProxyInfo proxyInfo, boolean alwaysTrust){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = baseUrl
+        builder.timeout = 120
+        builder.alwaysTrustServerCertificate = alwaysTrust
+        builder.applyProxyInfo(proxyInfo)
+        builder.build()
+    }
+
+    @Test
+    public void testConnectionsShareRootClient(){
+        RestConnection first = getRestConnection('https://www.google.com', ProxyInfo.NO_PROXY_INFO, false)
+        RestConnection second = getRestConnection('https://www.github.com', ProxyInfo.NO_PROXY_INFO, false)
+        first.connect()
+        second.connect()
+        OkHttpClient rootClient = RestClientRegistry.getInstance().getRootClient()
+        assert rootClient.connectionPool().is(first.client.connectionPool())
+        assert rootClient.connectionPool().is(second.client.connectionPool())
+        assert !first.client.dispatcher().is(second.client.dispatcher())
+        assert rootClient.dispatcher().executorService().is(first.client.dispatcher().executorService())
+        assert rootClient.dispatcher().executorService().is(second.client.dispatcher().executorService())
+        assert RestConnection.DEFAULT_MAX_REQUESTS_PER_HOST == first.client.dispatcher().maxRequestsPerHost
+        assert first.client.sslSocketFactory().is(second.client.sslSocketFactory())
+    }
+
+    @Test
+    public void testConnectionPoolAndDispatcherTuning(){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = 'http://www.google.com'
+        builder.maxIdleConnections = 20
+        builder.keepAliveDuration = 60
+        builder.maxRequests = 256
+        builder.maxRequestsPerHost = 64
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        RestConnection restConnection = builder.build()
+        restConnection.connect()
+
+        OkHttpClient rootClient = RestClientRegistry.getInstance().getRootClient()
+        assert 256 == restConnection.client.dispatcher().maxRequests
+        assert 64 == restConnection.client.dispatcher().maxRequestsPerHost
+        assert !rootClient.dispatcher().is(restConnection.client.dispatcher())
+        assert rootClient.dispatcher().executorService().is(restConnection.client.dispatcher().executorService())
+        assert !rootClient.connectionPool().is(restConnection.client.connectionPool())
+        assert RestClientRegistry.getInstance().getConnectionPool(20, 60).is(restConnection.client.connectionPool())
+        Dispatcher dispatcher = restConnection.client.dispatcher()
+        restConnection.connect()
+        assert dispatcher.is(restConnection.client.dispatcher())
+    }
+
+    @Test
+    public void testTlsConfigurationCachedPerTrustMode(){
+        RestClientRegistry registry = RestClientRegistry.getInstance()
+        assert registry.getTlsConfiguration(true).is(registry.getTlsConfiguration(true))
+        assert registry.getTlsConfiguration(false).is(registry.getTlsConfiguration(false))
+        assert !registry.getTlsConfiguration(true).is(registry.getTlsConfiguration(false))
+    }
+
+    @Test
+    public void testProxyAuthenticatorCachedPerProxy(){
+        ProxyInfoBuilder proxyBuilder = new ProxyInfoBuilder()
+        proxyBuilder.host = 'ProxyHost'
+        proxyBuilder.port = 3128
+        proxyBuilder.username = 'testUser'
+        proxyBuilder.password = 'password'
+        ProxyInfo proxyInfo = proxyBuilder.build()
+
+        RestConnection first = getRestConnection('http://www.google.com', proxyInfo, false)
+        RestConnection second = getRestConnection('http://www.github.com', proxyInfo, false)
+        first.connect()
+        second.connect()
+        assert first.client.proxyAuthenticator().is(second.client.proxyAuthenticator())
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import java.nio.file.Files
+import java.util.concurrent.TimeUnit
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.CredentialsRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.RestConnection
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+
+class RestConnectionCacheTest {
+    private final MockWebServer server = new MockWebServer();
+    private File cacheDirectory
+
+    @Before public void setUp() throws Exception {
+        server.start();
+        cacheDirectory = Files.createTempDirectory('hub-rest-cache').toFile()
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+        cacheDirectory.deleteDir()
+    }
+
+    private RestConnection getRestConnection(int staleWhileRevalidate){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.TRACE)
+        builder.baseUrl = server.url("/").url()
+        builder.cacheDirectory = cacheDirectory.absolutePath
+        builder.cacheMaxSize = 1024 * 1024
+        builder.staleWhileRevalidate = staleWhileRevalidate
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        builder.build()
+    }
+
+    private String executeGet(RestConnection restConnection){
+        new HubRequestFactory(restConnection).createRequest().executeGet().withCloseable{ it.body().string() }
+    }
+
+    @Test
+    public void testFreshResponseServedFromCache(){
+        server.enqueue(new MockResponse().setHeader('Cache-Control', 'max-age=60').setBody('{"name":"cached"}'))
+        RestConnection restConnection = getRestConnection(0)
+        assert '{"name":"cached"}' == executeGet(restConnection)
+        assert '{"name":"cached"}' == executeGet(restConnection)
+        assert 1 == server.requestCount
+        assert 1 == restConnection.client.cache().hitCount()
+    }
+
+    @Test
+    public void testConditionalRevalidation(){
+        server.enqueue(new MockResponse().setHeader('Cache-Control', 'no-cache').setHeader('ETag', '"v1"').setBody('{"name":"cached"}'))
+        server.enqueue(new MockResponse().setResponseCode(304))
+        RestConnection restConnection = getRestConnection(0)
+        assert '{"name":"cached"}' == executeGet(restConnection)
+        assert '{"name":"cached"}' == executeGet(restConnection)
+
+        server.takeRequest()
+        RecordedRequest conditionalRequest = server.takeRequest()
+        assert '"v1"' == conditionalRequest.getHeader('If-None-Match')
+    }
+
+    @Test
+    public void testStaleWhileRevalidate(){
+        server.enqueue(new MockResponse().setHeader('Cache-Control', 'max-age=0').setHeader('ETag', '"v1"').setBody('{"name":"stale"}'))
+        server.enqueue(new MockResponse().setHeader('Cache-Control', 'max-age=60').setHeader('ETag', '"v2"').setBody('{"name":"fresh"}'))
+        RestConnection restConnection = getRestConnection(60)
+        assert '{"name":"stale"}' == executeGet(restConnection)
+        assert '{"name":"stale"}' == executeGet(restConnection)
+
+        server.takeRequest()
+        RecordedRequest revalidation = server.takeRequest(5, TimeUnit.SECONDS)
+        assert '"v1"' == revalidation.getHeader('If-None-Match')
+    }
+
+    @Test
+    public void testStaleWhileRevalidateIsSingleFlight(){
+        server.enqueue(new MockResponse().setHeader('Cache-Control', 'max-age=0').setHeader('ETag', '"v1"').setBody('{"name":"stale"}'))
+        server.enqueue(new MockResponse().setHeader('Cache-Control', 'max-age=60').setHeader('ETag', '"v2"').setBody('{"name":"fresh"}').setHeadersDelay(500, TimeUnit.MILLISECONDS))
+        RestConnection restConnection = getRestConnection(60)
+        assert '{"name":"stale"}' == executeGet(restConnection)
+        3.times { assert '{"name":"stale"}' == executeGet(restConnection) }
+        restConnection.createResponseAsync(restConnection.createGetRequest(restConnection.createHttpUrl())).get(5, TimeUnit.SECONDS).withCloseable{ assert '{"name":"stale"}' == it.body().string() }
+
+        server.takeRequest()
+        assert '"v1"' == server.takeRequest(5, TimeUnit.SECONDS).getHeader('If-None-Match')
+        Thread.sleep(1000)
+        assert 2 == server.requestCount
+        assert '{"name":"fresh"}' == executeGet(restConnection)
+    }
+
+    @Test
+    public void testUsersDoNotShareCachedResponses(){
+        server.setDispatcher(new Dispatcher() {
+                    @Override
+                    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                        if (request.path.contains('j_spring_security_check')) {
+                            String username = request.body.readUtf8().contains('j_username=alice') ? 'alice' : 'bob'
+                            return new MockResponse().addHeader('Set-Cookie', "user=${username}")
+                        }
+                        String user = request.getHeader('Cookie').contains('user=alice') ? 'alice' : 'bob'
+                        new MockResponse().setHeader('Cache-Control', 'max-age=60').setBody("{\"name\":\"${user}\"}")
+                    }
+                });
+        RestConnection alice = getCredentialsRestConnection('alice')
+        RestConnection bob = getCredentialsRestConnection('bob')
+        alice.connect()
+        bob.connect()
+
+        assert '{"name":"alice"}' == executeGet(alice)
+        assert '{"name":"bob"}' == executeGet(bob)
+        assert '{"name":"alice"}' == executeGet(alice)
+        assert '{"name":"bob"}' == executeGet(bob)
+        assert !alice.client.cache().is(bob.client.cache())
+        assert 1 == alice.client.cache().hitCount()
+        assert 1 == bob.client.cache().hitCount()
+    }
+
+    private RestConnection getCredentialsRestConnection(String username){
+        CredentialsRestConnectionBuilder builder = new CredentialsRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.TRACE)
+        builder.baseUrl = server.url("/").url()
+        builder.username = username
+        builder.password = 'password'
+        builder.cacheDirectory = cacheDirectory.absolutePath
+        builder.staleWhileRevalidate = 60
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        builder.build()
+    }
+}
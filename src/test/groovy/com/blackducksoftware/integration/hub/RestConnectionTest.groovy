@@ -23,6 +23,11 @@
  */
 package com.blackducksoftware.integration.hub
 
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
 import org.junit.After
 import org.junit.Before
 import org.junit.Test
@@ -30,6 +35,7 @@ import org.junit.Test
 import com.blackducksoftware.integration.hub.proxy.ProxyInfo
 import com.blackducksoftware.integration.hub.proxy.ProxyInfoBuilder
 import com.blackducksoftware.integration.hub.rest.CredentialsRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.HttpProtocolMode
 import com.blackducksoftware.integration.hub.rest.RestConnection
 import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
 import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException
@@ -38,8 +44,10 @@ import com.blackducksoftware.integration.log.LogLevel
 import com.blackducksoftware.integration.log.PrintStreamIntLogger
 
 import okhttp3.FormBody
+import okhttp3.Headers
 import okhttp3.HttpUrl
 import okhttp3.OkHttpClient
+import okhttp3.Protocol
 import okhttp3.Request
 import okhttp3.RequestBody
 import okhttp3.mockwebserver.Dispatcher
@@ -148,6 +156,26 @@ class RestConnectionTest {
         assert okhttp3.Authenticator.NONE == realClient.proxyAuthenticator
     }
 
+    @Test
+    public void testProtocolMode(){
+        RestConnection restConnection = getRestConnection()
+        assert null == restConnection.negotiatedProtocol
+        Request request = restConnection.createGetRequest(restConnection.createHttpUrl())
+        restConnection.createResponse(request).withCloseable{  assert 200 == it.code }
+        assert [Protocol.HTTP_2, Protocol.HTTP_1_1] == restConnection.client.protocols()
+        // plain http never negotiates HTTP/2
+        assert Protocol.HTTP_1_1 == restConnection.negotiatedProtocol
+
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.protocolMode = HttpProtocolMode.HTTP_1_1
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        restConnection = builder.build()
+        restConnection.connect()
+        assert [Protocol.HTTP_1_1] == restConnection.client.protocols()
+    }
+
     @Test
     public void testToString(){
         RestConnection restConnection = getRestConnection()
@@ -222,6 +250,33 @@ class RestConnectionTest {
         assert restConnection.commonRequestHeaders.isEmpty()
     }
 
+    @Test
+    public void testCommonRequestHeadersMapView(){
+        RestConnection restConnection = getRestConnection()
+        Map<String, String> headers = restConnection.commonRequestHeaders
+        assert null == headers.put("Common", "Header")
+        assert "Header" == headers.put("Common", "Changed")
+        headers.putAll([Other:'Value'])
+        assert 2 == headers.size()
+        assert headers.containsKey("common")
+        assert [Common:'Changed', Other:'Value'] == new HashMap<>(headers)
+
+        Iterator<Map.Entry<String, String>> iterator = headers.entrySet().iterator()
+        while (iterator.hasNext()) {
+            if ("Other" == iterator.next().key) {
+                iterator.remove()
+            }
+        }
+        assert "Changed" == headers.remove("Common")
+        assert headers.isEmpty()
+        assert 0 == restConnection.getCommonRequestHeaderSnapshot().size()
+
+        headers.put("Common", "Header")
+        assert "Header" == restConnection.getCommonRequestHeaderSnapshot().get("Common")
+        assert "Header" == headers.put("Common", null)
+        assert !headers.containsKey("Common")
+    }
+
     @Test
     public void testCreatingPostRequest(){
         RestConnection restConnection = getRestConnection()
@@ -279,6 +334,26 @@ class RestConnectionTest {
         assert null == request.header("Common")
     }
 
+    @Test
+    public void testCommonRequestHeadersSnapshot(){
+        RestConnection restConnection = getRestConnection()
+        restConnection.commonRequestHeaders.put("Common", "Header")
+        Headers snapshot = restConnection.commonRequestHeaders.headers
+        restConnection.commonRequestHeaders.put("Common", "Replaced")
+        assert "Header" == snapshot.get("Common")
+        assert 1 == restConnection.commonRequestHeaders.size()
+        assert "Replaced" == restConnection.commonRequestHeaders.get("Common")
+
+        Request request = restConnection.createGetRequest(restConnection.createHttpUrl(), [Common:'Override'])
+        assert ['Override'] == request.headers("Common")
+
+        ExecutorService executor = Executors.newFixedThreadPool(4)
+        4.times{ int thread -> executor.submit{ 100.times{ restConnection.commonRequestHeaders.put("Thread-${thread}-${it}", 'value') } } }
+        executor.shutdown()
+        assert executor.awaitTermination(30, TimeUnit.SECONDS)
+        assert 401 == restConnection.commonRequestHeaders.size()
+    }
+
     @Test
     public void testHandleExecuteClientCallSuccessful(){
         RestConnection restConnection = getRestConnection()
@@ -311,6 +386,38 @@ class RestConnectionTest {
         }
     }
 
+    @Test
+    public void testCreateResponseAsyncSuccessful(){
+        RestConnection restConnection = getRestConnection()
+        HttpUrl httpUrl = restConnection.createHttpUrl()
+        Request request = restConnection.createGetRequest(httpUrl)
+        restConnection.createResponseAsync(request).get().withCloseable{  assert 200 == it.code }
+    }
+
+    @Test
+    public void testCreateResponseAsyncFail(){
+        RestConnection restConnection = getRestConnection(new MockResponse().setResponseCode(404))
+        HttpUrl httpUrl = restConnection.createHttpUrl()
+        Request request = restConnection.createGetRequest(httpUrl)
+        try{
+            restConnection.createResponseAsync(request).get()
+            fail('Should have thrown exception')
+        } catch (ExecutionException e) {
+            assert e.cause instanceof IntegrationRestException
+            assert 404 == e.cause.httpStatusCode
+        }
+
+        restConnection = getRestConnection(new MockResponse().setResponseCode(401))
+        request = restConnection.createGetRequest(httpUrl)
+        try{
+            restConnection.createResponseAsync(request).get()
+            fail('Should have thrown exception')
+        } catch (ExecutionException e) {
+            assert e.cause instanceof IntegrationRestException
+            assert 401 == e.cause.httpStatusCode
+        }
+    }
+
     @Test
     public void testParsingDate(){
         String dateString = '2017-03-02T03:35:23.456Z'
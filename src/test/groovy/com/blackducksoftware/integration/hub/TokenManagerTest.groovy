@@ -23,6 +23,14 @@
  */
 package com.blackducksoftware.integration.hub
 
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
 import org.junit.After
 import org.junit.Before
 import org.junit.Test
@@ -34,7 +42,9 @@ import com.blackducksoftware.integration.hub.proxy.ProxyInfo
 import com.blackducksoftware.integration.hub.proxy.ProxyInfoBuilder
 import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException
 import com.blackducksoftware.integration.hub.rest.oauth.AccessType
+import com.blackducksoftware.integration.hub.rest.oauth.IssuedToken
 import com.blackducksoftware.integration.hub.rest.oauth.TokenManager
+import com.blackducksoftware.integration.hub.rest.oauth.UserTokenCache
 import com.blackducksoftware.integration.log.LogLevel
 import com.blackducksoftware.integration.log.PrintStreamIntLogger
 
@@ -279,4 +289,162 @@ class TokenManagerTest {
             assert 404 == restException.httpStatusCode
         }
     }
+
+    @Test
+    public void testConcurrentClientTokenRequestsAreShared(){
+        TokenManager tokenManager = getTokenManager(new MockResponse().setResponseCode(200).setBody(getClientTokenJson()).setHeadersDelay(200, TimeUnit.MILLISECONDS))
+        ExecutorService executor = Executors.newFixedThreadPool(10)
+        try{
+            List<Future<Token>> futures = (1..10).collect{ executor.submit({ tokenManager.getToken(AccessType.CLIENT) } as Callable<Token>) }
+            List<Token> tokens = futures.collect{ it.get(10, TimeUnit.SECONDS) }
+            assert 1 == server.requestCount
+            assert tokens.every{ it.is(tokens[0]) }
+            assert tokens[0].is(tokenManager.getToken(AccessType.CLIENT))
+            assert 1 == server.requestCount
+        } finally{
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    public void testConcurrentClientTokenFailureIsShared(){
+        TokenManager tokenManager = getTokenManager(new MockResponse().setResponseCode(404).setHeadersDelay(200, TimeUnit.MILLISECONDS))
+        ExecutorService executor = Executors.newFixedThreadPool(5)
+        try{
+            List<Future<Token>> futures = (1..5).collect{ executor.submit({ tokenManager.getToken(AccessType.CLIENT) } as Callable<Token>) }
+            futures.each{
+                try{
+                    it.get(10, TimeUnit.SECONDS)
+                    fail('Should have thrown exception')
+                } catch (ExecutionException e){
+                    IntegrationException cause = e.getCause()
+                    assert 'Error refreshing client token'.equals(cause.getMessage())
+                    IntegrationRestException restException = cause.getCause()
+                    assert 404 == restException.httpStatusCode
+                }
+            }
+            assert 1 == server.requestCount
+            assert null == tokenManager.clientToken
+        } finally{
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    public void testIssuedTokenExpiry(){
+        Token token = new Token()
+        token.expiresIn = '100'
+        IssuedToken issuedToken = new IssuedToken(token, 1000L)
+        assert issuedToken.hasExpiry()
+        assert 101000L == issuedToken.expiresAt
+        assert 76000L == issuedToken.getRefreshAt(0.75)
+        assert !issuedToken.isExpired(70000L, 30000L)
+        assert issuedToken.isExpired(71000L, 30000L)
+
+        token.expiresIn = null
+        assert !new IssuedToken(token, 1000L).hasExpiry()
+        assert !new IssuedToken(token, 1000L).isExpired(Long.MAX_VALUE - 1, 0)
+        token.expiresIn = 'never'
+        assert IssuedToken.NO_EXPIRY == new IssuedToken(token, 1000L).getRefreshAt(0.75)
+    }
+
+    @Test
+    public void testValidTokenIsReused(){
+        TokenManager tokenManager = getTokenManager()
+        Token token = tokenManager.getToken(AccessType.CLIENT)
+        IssuedToken issuedToken = tokenManager.getIssuedToken(AccessType.CLIENT)
+        assert token.is(issuedToken.token)
+        assert issuedToken.expiresAt - issuedToken.issuedAt == 86399000L
+        assert tokenManager.isValid(issuedToken)
+        assert token.is(tokenManager.getToken(AccessType.CLIENT))
+        assert 1 == server.requestCount
+    }
+
+    @Test
+    public void testExpiredTokenIsReplaced(){
+        TokenManager tokenManager = getTokenManager(new MockResponse().setResponseCode(200).setBody('{"access_token":"short","token_type":"bearer","expires_in":1}'))
+        tokenManager.proactiveRefresh = false
+        tokenManager.expiryMarginSeconds = 0
+        Token token = tokenManager.getToken(AccessType.CLIENT)
+        assert token.is(tokenManager.getToken(AccessType.CLIENT))
+        Thread.sleep(1100)
+        assert !tokenManager.isValid(tokenManager.getIssuedToken(AccessType.CLIENT))
+        assert !token.is(tokenManager.getToken(AccessType.CLIENT))
+        assert 2 == server.requestCount
+    }
+
+    @Test
+    public void testProactiveRefresh(){
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor()
+        try{
+            TokenManager tokenManager = getTokenManager(new MockResponse().setResponseCode(200).setBody('{"access_token":"short","token_type":"bearer","expires_in":2}'))
+            tokenManager.refreshScheduler = scheduler
+            tokenManager.refreshFraction = 0.25
+            tokenManager.expiryMarginSeconds = 0
+            IssuedToken first = tokenManager.getIssuedToken(AccessType.CLIENT)
+            assert null == first
+            tokenManager.getToken(AccessType.CLIENT)
+            first = tokenManager.getIssuedToken(AccessType.CLIENT)
+
+            long deadline = System.currentTimeMillis() + 5000
+            while (tokenManager.getIssuedToken(AccessType.CLIENT).is(first) && System.currentTimeMillis() < deadline){
+                Thread.sleep(50)
+            }
+            IssuedToken refreshed = tokenManager.getIssuedToken(AccessType.CLIENT)
+            assert !refreshed.is(first)
+            assert refreshed.issuedAt - first.issuedAt < 2000
+
+            tokenManager.proactiveRefresh = false
+        } finally{
+            scheduler.shutdownNow()
+        }
+    }
+
+    @Test
+    public void testRefreshFractionValidation(){
+        TokenManager tokenManager = getTokenManager()
+        try{
+            tokenManager.setRefreshFraction(1.0)
+            fail('Should have thrown exception')
+        } catch (IllegalArgumentException e){
+        }
+        assert TokenManager.DEFAULT_REFRESH_FRACTION == tokenManager.refreshFraction
+    }
+
+    @Test
+    public void testUserTokensAreCachedAndRotated(){
+        String refreshToken = 'RefreshToken'
+        TokenManager tokenManager = getTokenManager(new MockResponse().setResponseCode(200).setBody(getUserTokenJson()), refreshToken)
+        tokenManager.proactiveRefresh = false
+        Token token = tokenManager.getToken(AccessType.USER)
+        assert token.is(tokenManager.getToken(AccessType.USER))
+        assert 1 == server.requestCount
+        assert server.takeRequest().body.readUtf8().contains("refresh_token=${refreshToken}")
+
+        UserTokenCache userTokenCache = tokenManager.userTokenCache
+        assert 2 == userTokenCache.size()
+        assert 1 == userTokenCache.rotationCount
+        assert token.is(userTokenCache.get('ClientId', refreshToken).token)
+        assert token.is(userTokenCache.get('ClientId', token.refreshToken).token)
+
+        Token refreshed = tokenManager.refreshToken(AccessType.USER)
+        assert !refreshed.is(token)
+        assert server.takeRequest().body.readUtf8().contains("refresh_token=${token.refreshToken}")
+        assert refreshed.is(tokenManager.getToken(AccessType.USER))
+    }
+
+    @Test
+    public void testUserTokenCacheIsSharedBetweenManagers(){
+        String refreshToken = 'RefreshToken'
+        UserTokenCache userTokenCache = new UserTokenCache(10)
+        TokenManager first = getTokenManager(new MockResponse().setResponseCode(200).setBody(getUserTokenJson()), refreshToken)
+        first.userTokenCache = userTokenCache
+        TokenManager second = getTokenManager(new MockResponse().setResponseCode(200).setBody(getUserTokenJson()), refreshToken)
+        second.userTokenCache = userTokenCache
+
+        Token token = first.getToken(AccessType.USER)
+        assert token.is(second.getToken(AccessType.USER))
+        assert 1 == server.requestCount
+        first.proactiveRefresh = false
+    }
 }
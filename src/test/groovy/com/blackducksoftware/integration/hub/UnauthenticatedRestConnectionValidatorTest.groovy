@@ -26,6 +26,7 @@ package com.blackducksoftware.integration.hub
 import org.apache.commons.lang3.StringUtils
 import org.junit.Test
 
+import com.blackducksoftware.integration.hub.rest.HttpProtocolMode
 import com.blackducksoftware.integration.hub.rest.RestConnectionFieldEnum
 import com.blackducksoftware.integration.hub.validator.UnauthenticatedRestConnectionValidator
 import com.blackducksoftware.integration.log.IntLogger
@@ -144,6 +145,124 @@ class UnauthenticatedRestConnectionValidatorTest {
         assert resultString.contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_TIMEOUT_NOT_VALID)
     }
 
+    @Test
+    public void testConnectionPoolValid() {
+        UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
+        validator.setMaxIdleConnections(0)
+        validator.setKeepAliveDuration(60)
+        ValidationResults result = new ValidationResults()
+        validator.validateConnectionPool(result)
+        assert 0 == validator.getMaxIdleConnections()
+        assert 60 == validator.getKeepAliveDuration()
+        assert result.success
+    }
+
+    @Test
+    public void testConnectionPoolInvalid() {
+        UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
+        validator.setMaxIdleConnections(-1)
+        validator.setKeepAliveDuration(0)
+        ValidationResults result = new ValidationResults()
+        validator.validateConnectionPool(result)
+        assert result.hasErrors()
+        assert result.getResultString(RestConnectionFieldEnum.MAX_IDLE_CONNECTIONS).contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_MAX_IDLE_CONNECTIONS_NOT_VALID)
+        assert result.getResultString(RestConnectionFieldEnum.KEEP_ALIVE_DURATION).contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_KEEP_ALIVE_DURATION_NOT_VALID)
+    }
+
+    @Test
+    public void testDispatcherValid() {
+        UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
+        validator.setMaxRequests(128)
+        validator.setMaxRequestsPerHost(32)
+        ValidationResults result = new ValidationResults()
+        validator.validateDispatcher(result)
+        assert 128 == validator.getMaxRequests()
+        assert 32 == validator.getMaxRequestsPerHost()
+        assert result.success
+    }
+
+    @Test
+    public void testDispatcherInvalid() {
+        UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
+        validator.setMaxRequests(0)
+        validator.setMaxRequestsPerHost(-5)
+        ValidationResults result = new ValidationResults()
+        validator.validateDispatcher(result)
+        assert result.hasErrors()
+        assert result.getResultString(RestConnectionFieldEnum.MAX_REQUESTS).contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_MAX_REQUESTS_NOT_VALID)
+        assert result.getResultString(RestConnectionFieldEnum.MAX_REQUESTS_PER_HOST).contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_MAX_REQUESTS_PER_HOST_NOT_VALID)
+    }
+
+    @Test
+    public void testProtocolModeValid() {
+        UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
+        assert HttpProtocolMode.HTTP_2 == validator.getProtocolMode()
+        validator.setProtocolMode(HttpProtocolMode.HTTP_1_1)
+        ValidationResults result = new ValidationResults()
+        validator.validateProtocolMode(result)
+        assert HttpProtocolMode.HTTP_1_1 == validator.getProtocolMode()
+        assert result.success
+    }
+
+    @Test
+    public void testProtocolModeInvalid() {
+        UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
+        validator.setProtocolMode(null)
+        ValidationResults result = new ValidationResults()
+        validator.validateProtocolMode(result)
+        final String resultString = result.getResultString(RestConnectionFieldEnum.PROTOCOL_MODE)
+        assert result.hasErrors()
+        assert resultString.contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_PROTOCOL_MODE_NOT_VALID)
+    }
+
+    @Test
+    public void testCacheValid() {
+        UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
+        ValidationResults result = new ValidationResults()
+        validator.validateCache(result)
+        assert result.success
+
+        validator.setCacheDirectory(System.getProperty('java.io.tmpdir'))
+        validator.setCacheMaxSize(1024)
+        validator.setStaleWhileRevalidate(30)
+        result = new ValidationResults()
+        validator.validateCache(result)
+        assert 1024 == validator.getCacheMaxSize()
+        assert 30 == validator.getStaleWhileRevalidate()
+        assert result.success
+    }
+
+    @Test
+    public void testCacheInvalid() {
+        File file = File.createTempFile('hub-rest-cache', '.txt')
+        file.deleteOnExit()
+        UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
+        validator.setCacheDirectory(file.absolutePath)
+        validator.setCacheMaxSize(0)
+        validator.setStaleWhileRevalidate(-1)
+        ValidationResults result = new ValidationResults()
+        validator.validateCache(result)
+        final String resultString = result.getResultString(RestConnectionFieldEnum.CACHE)
+        assert result.hasErrors()
+        assert resultString.contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_CACHE_DIRECTORY_NOT_VALID)
+        assert resultString.contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_CACHE_MAX_SIZE_NOT_VALID)
+        assert result.getResultString(RestConnectionFieldEnum.STALE_WHILE_REVALIDATE).contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_STALE_WHILE_REVALIDATE_NOT_VALID)
+    }
+
+    @Test
+    public void testRetryPolicyInvalid() {
+        UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
+        ValidationResults result = new ValidationResults()
+        validator.validateRetryPolicy(result)
+        assert result.success
+
+        validator.setRetryPolicy(null)
+        result = new ValidationResults()
+        validator.validateRetryPolicy(result)
+        assert result.hasErrors()
+        assert result.getResultString(RestConnectionFieldEnum.RETRY_POLICY).contains(UnauthenticatedRestConnectionValidator.ERROR_MSG_RETRY_POLICY_NOT_VALID)
+    }
+
     @Test
     public void testHeadersValid() {
         UnauthenticatedRestConnectionValidator validator = new UnauthenticatedRestConnectionValidator()
@@ -0,0 +1,118 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo
+import com.blackducksoftware.integration.hub.request.HubRequestFactory
+import com.blackducksoftware.integration.hub.rest.RestConnection
+import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder
+import com.blackducksoftware.integration.hub.rest.UrlTemplate
+import com.blackducksoftware.integration.log.LogLevel
+import com.blackducksoftware.integration.log.PrintStreamIntLogger
+
+import okhttp3.HttpUrl
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+
+class UrlTemplateTest {
+    private final MockWebServer server = new MockWebServer();
+
+    @Before public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private RestConnection getRestConnection(){
+        UnauthenticatedRestConnectionBuilder builder = new UnauthenticatedRestConnectionBuilder()
+        builder.logger = new PrintStreamIntLogger(System.out, LogLevel.INFO)
+        builder.baseUrl = server.url("/").url()
+        builder.applyProxyInfo(ProxyInfo.NO_PROXY_INFO)
+        builder.build()
+    }
+
+    @Test
+    public void testExpand(){
+        UrlTemplate template = UrlTemplate.compile(HttpUrl.parse('https://hub.example.com/hub/'), '/api/projects/{projectId}/versions?q={q}&limit=100')
+        assert ['projectId', 'q'] as Set == template.variableNames
+        assert 'https://hub.example.com/hub/api/projects/a%20b%2Fc/versions?q=versionName%3A1.0+%26+%22x%22&limit=100' == template.expand([projectId:'a b/c', q:'versionName:1.0 & "x"']).toString()
+        assert 'https://hub.example.com/hub/api/projects/1/versions?limit=100&offset=20' == template.expand([projectId:'1'], [offset:'20']).toString()
+        assert 'https://hub.example.com/hub/api/projects' == UrlTemplate.compile(HttpUrl.parse('https://hub.example.com/hub/'), 'api/projects/').expand(null).toString()
+    }
+
+    @Test
+    public void testMatchesCreateHttpUrl(){
+        RestConnection restConnection = getRestConnection()
+        Map<String, String> queryParameters = [q:'name:a b', sort:'updatedAt DESC']
+        HttpUrl expected = restConnection.createHttpUrl(['api', 'projects', 'x y', 'versions'], queryParameters)
+        UrlTemplate template = restConnection.compileUrlTemplate('/api/projects/{projectId}/versions?q={q}&sort={sort}')
+        assert expected == template.expand([projectId:'x y', q:'name:a b', sort:'updatedAt DESC'])
+    }
+
+    @Test
+    public void testInvalidTemplates(){
+        try{
+            UrlTemplate.compile(HttpUrl.parse('https://hub.example.com/'), '/api/projects/{projectId}').expand([:])
+            fail('Should have thrown exception')
+        } catch (IllegalArgumentException e){
+        }
+        try{
+            UrlTemplate.compile(HttpUrl.parse('https://hub.example.com/'), '/api/projects/id-{projectId}')
+            fail('Should have thrown exception')
+        } catch (IllegalArgumentException e){
+        }
+        try{
+            UrlTemplate.compile(HttpUrl.parse('https://hub.example.com/'), '/api/projects?{name}=value')
+            fail('Should have thrown exception')
+        } catch (IllegalArgumentException e){
+        }
+    }
+
+    @Test
+    public void testRequestWithTemplate(){
+        server.enqueue(new MockResponse().setResponseCode(200))
+        server.enqueue(new MockResponse().setResponseCode(200))
+        RestConnection restConnection = getRestConnection()
+        HubRequestFactory hubRequestFactory = new HubRequestFactory(restConnection)
+        UrlTemplate template = restConnection.compileUrlTemplate('/api/projects/{projectId}/versions')
+
+        hubRequestFactory.createRequest(template, [projectId:'1']).executeGet().close()
+        hubRequestFactory.createPagedRequest(25, template, [projectId:'2']).executeGet().close()
+
+        RecordedRequest request = server.takeRequest()
+        assert '/api/projects/1/versions' == request.path
+        request = server.takeRequest()
+        HttpUrl url = request.requestUrl
+        assert '/api/projects/2/versions' == url.encodedPath()
+        assert '25' == url.queryParameter('limit')
+        assert '0' == url.queryParameter('offset')
+    }
+}
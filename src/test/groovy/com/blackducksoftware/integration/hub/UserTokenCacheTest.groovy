@@ -0,0 +1,99 @@
+/**
+ * Hub Common Rest
+ *
+ * Copyright (C) 2017 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub
+
+import org.junit.Test
+
+import com.blackducksoftware.integration.hub.api.oauth.Token
+import com.blackducksoftware.integration.hub.rest.oauth.IssuedToken
+import com.blackducksoftware.integration.hub.rest.oauth.UserTokenCache
+
+class UserTokenCacheTest {
+
+    private IssuedToken createIssuedToken(String accessToken, String refreshToken){
+        Token token = new Token()
+        token.accessToken = accessToken
+        token.refreshToken = refreshToken
+        token.expiresIn = '3600'
+        new IssuedToken(token, System.currentTimeMillis())
+    }
+
+    @Test
+    public void testGetAndPut(){
+        UserTokenCache cache = new UserTokenCache()
+        assert null == cache.get('client', 'refresh')
+        assert null == cache.get('client', null)
+        assert 1 == cache.missCount
+
+        IssuedToken issuedToken = createIssuedToken('access', 'refresh')
+        cache.put('client', 'refresh', issuedToken)
+        assert issuedToken.is(cache.get('client', 'refresh'))
+        assert null == cache.get('other', 'refresh')
+        assert 1 == cache.size()
+        assert 0 == cache.rotationCount
+        assert 1 == cache.hitCount
+    }
+
+    @Test
+    public void testRotation(){
+        UserTokenCache cache = new UserTokenCache()
+        IssuedToken first = createIssuedToken('access1', 'refresh2')
+        cache.put('client', 'refresh1', first)
+        assert first.is(cache.get('client', 'refresh1'))
+        assert first.is(cache.get('client', 'refresh2'))
+        assert 1 == cache.rotationCount
+
+        IssuedToken second = createIssuedToken('access2', 'refresh3')
+        cache.put('client', 'refresh1', second)
+        assert second.is(cache.get('client', 'refresh1'))
+        assert second.is(cache.get('client', 'refresh2'))
+        assert second.is(cache.get('client', 'refresh3'))
+        assert 3 == cache.size()
+
+        cache.invalidate('client', 'refresh2')
+        assert 0 == cache.size()
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction(){
+        UserTokenCache cache = new UserTokenCache(2)
+        cache.put('client', 'a', createIssuedToken('a', null))
+        cache.put('client', 'b', createIssuedToken('b', null))
+        cache.get('client', 'a')
+        cache.put('client', 'c', createIssuedToken('c', null))
+        assert 2 == cache.size()
+        assert 1 == cache.evictionCount
+        assert null != cache.get('client', 'a')
+        assert null == cache.get('client', 'b')
+        assert null != cache.get('client', 'c')
+
+        cache.invalidateAll()
+        assert 0 == cache.size()
+        try{
+            new UserTokenCache(0)
+            fail('Should have thrown exception')
+        } catch (IllegalArgumentException e){
+        }
+    }
+}